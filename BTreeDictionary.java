@@ -0,0 +1,655 @@
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+   A class that implements a sorted dictionary by using a B+-tree. Each
+   node holds up to a few dozen keys packed in one array and is searched
+   by binary search, so a lookup reads about log_32(n) nodes instead of
+   following a link per entry. Entries live only in the leaves, which are
+   linked in key order, so iteration walks whole arrays from one leaf to
+   the next. A range query descends once to its first leaf and then
+   streams through the leaves, finding where to stop in each with one
+   comparison.
+
+   Nodes are split on the way down by add when they are full, and fixed
+   on the way down by remove when they hold the minimum, by borrowing
+   from or merging with a sibling. So neither operation has to climb
+   back up the tree.
+*/
+public class BTreeDictionary<K extends Comparable<? super K>, V> {
+	private static final int LEAF_CAPACITY = 64;       // Entries per leaf
+	private static final int INNER_CAPACITY = 64;      // Keys per inner node
+	private static final int MIN_LEAF = LEAF_CAPACITY / 2;
+	private static final int MIN_INNER = (INNER_CAPACITY - 1) / 2;
+	private Node root;
+	private Leaf firstLeaf;
+	private int numberOfEntries;
+
+	public BTreeDictionary() {
+		initializeDataFields();
+	}
+
+	/** Task: Adds a new entry to the dictionary. If the given search
+	 *        key already exists in the dictionary, replaces the
+	 *        corresponding value.
+	 *  @param key    an object search key of the new entry
+	 *  @param value  an object associated with the search key
+	 *  @return either null if the new entry was added to the dictionary or the
+	 *          value that was associated with key if that value was replaced */
+	public V add(K key, V value) {
+		if (key == null || value == null) {
+			throw new IllegalArgumentException();
+		}
+		if (root.isFull()) {
+			Inner newRoot = new Inner();
+			newRoot.children[0] = root;
+			newRoot.splitChild(0);
+			root = newRoot;
+		}
+		Node node = root;
+		while (node instanceof BTreeDictionary.Inner) {
+			Inner inner = (Inner) node;
+			int index = inner.childIndex(key);
+			if (inner.children[index].isFull()) {
+				inner.splitChild(index);
+				if (key.compareTo(inner.keys[index]) >= 0) {
+					index++;
+				}
+			}
+			node = inner.children[index];
+		}
+		Leaf leaf = (Leaf) node;
+		int index = leaf.search(key);
+		if (index >= 0) {
+			V oldValue = leaf.values[index];
+			leaf.values[index] = value;
+			return oldValue;
+		}
+		leaf.insert(-index - 1, key, value);
+		numberOfEntries++;
+		return null;
+	}
+
+	/** Task: Removes a specific entry from the dictionary.
+	 *  @param key  an object search key of the entry to be removed
+	 *  @return either the value that was associated with the search key
+	 *          or null if no such object exists */
+	public V remove(K key) {
+		Node node = root;
+		while (node instanceof BTreeDictionary.Inner) {
+			Inner inner = (Inner) node;
+			int index = inner.childIndex(key);
+			if (inner.children[index].isMinimal()) {
+				index = inner.fixChild(index, key);
+				if (inner.size == 0) {
+					root = inner.children[0];    // The root's last two children merged
+				}
+			}
+			node = inner.children[index];
+		}
+		Leaf leaf = (Leaf) node;
+		int index = leaf.search(key);
+		if (index < 0) {
+			return null;
+		}
+		V removedValue = leaf.values[index];
+		leaf.delete(index);
+		numberOfEntries--;
+		return removedValue;
+	}
+
+	/** Task: Retrieves the value associated with a given search key.
+	 *  @param key  an object search key of the entry to be retrieved
+	 *  @return either the value that is associated with the search key
+	 *          or null if no such object exists */
+	public V getValue(K key) {
+		Leaf leaf = findLeaf(key);
+		int index = leaf.search(key);
+		return (index >= 0) ? leaf.values[index] : null;
+	}
+
+	/** Task: Sees whether a specific entry is in the dictionary.
+	 *  @param key  an object search key of the desired entry
+	 *  @return true if key is associated with an entry in the
+	 *          dictionary */
+	public boolean contains(K key) {
+		return getValue(key) != null;
+	}
+
+	/** Task: Sees whether the dictionary is empty.
+	 *  @return true if the dictionary is empty */
+	public boolean isEmpty() {
+		return numberOfEntries == 0;
+	}
+
+	/** Task: Gets the size of the dictionary.
+	 *  @return the number of entries (key-value pairs) currently
+	 *          in the dictionary */
+	public int getSize() {
+		return numberOfEntries;
+	}
+
+	/** Task: Removes all entries from the dictionary. */
+	public final void clear() {
+		initializeDataFields();
+	}
+
+	/** Task: Creates an iterator that traverses all search keys in the
+	 *        dictionary in ascending order.
+	 *  @return an iterator that provides sequential access to the search
+	 *          keys in the dictionary */
+	public Iterator<K> getKeyIterator() {
+		return new KeyIterator();
+	}
+
+	/** Task: Creates an iterator that traverses all values in the
+	 *        dictionary in the ascending order of their keys.
+	 *  @return an iterator that provides sequential access to the values
+	 *          in the dictionary */
+	public Iterator<V> getValueIterator() {
+		return new ValueIterator();
+	}
+
+	/** Task: Finds the largest key less than or equal to a given key.
+	 *  @param key  an object search key
+	 *  @return either that key or null if there is none */
+	public K floorKey(K key) {
+		return lastKeyBefore(key, true);
+	}
+
+	/** Task: Finds the smallest key greater than or equal to a given key.
+	 *  @param key  an object search key
+	 *  @return either that key or null if there is none */
+	public K ceilingKey(K key) {
+		return firstKeyAfter(key, true);
+	}
+
+	/** Task: Finds the smallest key greater than a given key.
+	 *  @param key  an object search key
+	 *  @return either that key or null if there is none */
+	public K higherKey(K key) {
+		return firstKeyAfter(key, false);
+	}
+
+	/** Task: Finds the largest key less than a given key.
+	 *  @param key  an object search key
+	 *  @return either that key or null if there is none */
+	public K lowerKey(K key) {
+		return lastKeyBefore(key, false);
+	}
+
+	/** Task: Creates an iterator over the entries whose keys are at least
+	 *        from and less than to, in ascending order. The first entry is
+	 *        found in O(log n) time; the rest are read leaf by leaf as the
+	 *        iterator reaches them.
+	 *  @param from  the smallest search key to include
+	 *  @param to    the search key at which to stop, not included
+	 *  @return an iterator over the entries in the range */
+	public Iterator<Map.Entry<K, V>> range(K from, K to) {
+		if ((from == null) || (to == null)) {
+			throw new IllegalArgumentException("Bounds must not be null");
+		}
+		else if (from.compareTo(to) > 0) {
+			throw new IllegalArgumentException("from must not be greater than to");
+		}
+		return rangeFrom(from, to);
+	}
+
+	/** Task: Creates an iterator over the entries whose keys are less than
+	 *        a given key, in ascending order.
+	 *  @param to  the search key at which to stop, not included
+	 *  @return an iterator over the entries before to */
+	public Iterator<Map.Entry<K, V>> headRange(K to) {
+		if (to == null) {
+			throw new IllegalArgumentException("Bounds must not be null");
+		}
+		return new EntryIterator(firstLeaf, 0, to);
+	}
+
+	/** Task: Creates an iterator over the entries whose keys are at least
+	 *        a given key, in ascending order.
+	 *  @param from  the smallest search key to include
+	 *  @return an iterator over the entries from from on */
+	public Iterator<Map.Entry<K, V>> tailRange(K from) {
+		if (from == null) {
+			throw new IllegalArgumentException("Bounds must not be null");
+		}
+		return rangeFrom(from, null);
+	}
+
+	// Returns the number of levels in the tree.
+	int getHeight() {
+		int height = 1;
+		for (Node node = root; node instanceof BTreeDictionary.Inner; node = ((Inner) node).children[0]) {
+			height++;
+		}
+		return height;
+	}
+
+	// Returns the leaf whose keys include key.
+	private Leaf findLeaf(K key) {
+		Node node = root;
+		while (node instanceof BTreeDictionary.Inner) {
+			Inner inner = (Inner) node;
+			node = inner.children[inner.childIndex(key)];
+		}
+		return (Leaf) node;
+	}
+
+	// Returns the largest key less than key, or less than or equal to it
+	// if inclusive is true; null if there is none. Leaves have no links
+	// back, so the descent remembers the nearest subtree wholly before key
+	// in case key's own leaf has nothing before it.
+	private K lastKeyBefore(K key, boolean inclusive) {
+		Node node = root;
+		Node subtreeBefore = null;
+		while (node instanceof BTreeDictionary.Inner) {
+			Inner inner = (Inner) node;
+			int index = inner.childIndex(key);
+			if (index > 0) {
+				subtreeBefore = inner.children[index - 1];
+			}
+			node = inner.children[index];
+		}
+		Leaf leaf = (Leaf) node;
+		int index = leaf.search(key);
+		int before = (index >= 0) ? (inclusive ? index : index - 1) : -index - 2;
+		if (before >= 0) {
+			return leaf.keys[before];
+		}
+		if (subtreeBefore == null) {
+			return null;
+		}
+		while (subtreeBefore instanceof BTreeDictionary.Inner) {
+			Inner inner = (Inner) subtreeBefore;
+			subtreeBefore = inner.children[inner.size];
+		}
+		return subtreeBefore.keys[subtreeBefore.size - 1];
+	}
+
+	// Returns the smallest key greater than key, or greater than or equal
+	// to it if inclusive is true; null if there is none.
+	private K firstKeyAfter(K key, boolean inclusive) {
+		Leaf leaf = findLeaf(key);
+		int index = leaf.search(key);
+		int after = (index >= 0) ? (inclusive ? index : index + 1) : -index - 1;
+		if (after == leaf.size) {
+			leaf = leaf.next;       // Holds only keys greater than key
+			after = 0;
+		}
+		return (leaf == null) ? null : leaf.keys[after];
+	}
+
+	// Returns an iterator over the entries from the first key at least
+	// from up to, but not including, to; or to the end if to is null.
+	private Iterator<Map.Entry<K, V>> rangeFrom(K from, K to) {
+		Leaf leaf = findLeaf(from);
+		int index = leaf.search(from);
+		return new EntryIterator(leaf, (index >= 0) ? index : -index - 1, to);
+	}
+
+	// Initializes the class's data fields to indicate an empty tree.
+	private void initializeDataFields() {
+		firstLeaf = new Leaf();
+		root = firstLeaf;
+		numberOfEntries = 0;
+	}
+
+	// The cast is safe because the new array contains null entries, and K
+	// erases to Comparable
+	@SuppressWarnings("unchecked")
+	private K[] newKeyArray(int length) {
+		return (K[]) new Comparable<?>[length];
+	}
+
+	//****************************Node**************************
+	// A leaf or inner node; keys[0..size) are in ascending order.
+	private abstract class Node {
+		final K[] keys;
+		int size;
+
+		private Node(int capacity) {
+			keys = newKeyArray(capacity);
+		}
+
+		abstract boolean isFull();
+
+		// True if removing from this node would leave it too small.
+		abstract boolean isMinimal();
+	}
+
+	//****************************Leaf**************************
+	private class Leaf extends Node {
+		private final V[] values;
+		private Leaf next;       // The leaf with the next larger keys
+
+		private Leaf() {
+			super(LEAF_CAPACITY);
+			// The cast is safe because the new array contains null entries
+			@SuppressWarnings("unchecked")
+			V[] tempValues = (V[]) new Object[LEAF_CAPACITY];
+			values = tempValues;
+		}
+
+		boolean isFull() {
+			return size == LEAF_CAPACITY;
+		}
+
+		boolean isMinimal() {
+			return size <= MIN_LEAF;
+		}
+
+		// Returns the index of key, or -(insertion point) - 1 if it is absent.
+		private int search(K key) {
+			int low = 0;
+			int high = size - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				int comparison = key.compareTo(keys[mid]);
+				if (comparison > 0) {
+					low = mid + 1;
+				}
+				else if (comparison < 0) {
+					high = mid - 1;
+				}
+				else {
+					return mid;
+				}
+			}
+			return -(low + 1);
+		}
+
+		private void insert(int index, K key, V value) {
+			System.arraycopy(keys, index, keys, index + 1, size - index);
+			System.arraycopy(values, index, values, index + 1, size - index);
+			keys[index] = key;
+			values[index] = value;
+			size++;
+		}
+
+		private void delete(int index) {
+			System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+			System.arraycopy(values, index + 1, values, index, size - index - 1);
+			size--;
+			keys[size] = null;
+			values[size] = null;
+		}
+
+		// Moves the entries from index on into the empty leaf right.
+		private void moveTail(int index, Leaf right) {
+			int count = size - index;
+			System.arraycopy(keys, index, right.keys, right.size, count);
+			System.arraycopy(values, index, right.values, right.size, count);
+			java.util.Arrays.fill(keys, index, size, null);
+			java.util.Arrays.fill(values, index, size, null);
+			right.size += count;
+			size = index;
+		}
+	}
+
+	//****************************Inner**************************
+	// children[i] holds the keys less than keys[i], and children[i + 1]
+	// the keys greater than or equal to it.
+	private class Inner extends Node {
+		private final Node[] children;
+
+		@SuppressWarnings("unchecked")
+		private Inner() {
+			super(INNER_CAPACITY);
+			// The cast is safe because the new array contains null entries
+			children = (Node[]) new BTreeDictionary<?, ?>.Node[INNER_CAPACITY + 1];
+		}
+
+		boolean isFull() {
+			return size == INNER_CAPACITY;
+		}
+
+		boolean isMinimal() {
+			return size <= MIN_INNER;
+		}
+
+		// Returns the index of the child whose keys include key: the number
+		// of keys less than or equal to it.
+		private int childIndex(K key) {
+			int low = 0;
+			int high = size;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (key.compareTo(keys[mid]) >= 0) {
+					low = mid + 1;
+				}
+				else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+
+		// Inserts key and, after it, the child right.
+		private void insert(int index, K key, Node right) {
+			System.arraycopy(keys, index, keys, index + 1, size - index);
+			System.arraycopy(children, index + 1, children, index + 2, size - index);
+			keys[index] = key;
+			children[index + 1] = right;
+			size++;
+		}
+
+		// Removes keys[index] and the child after it.
+		private void delete(int index) {
+			System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+			System.arraycopy(children, index + 2, children, index + 1, size - index - 1);
+			size--;
+			keys[size] = null;
+			children[size + 1] = null;
+		}
+
+		// Splits the full child at index in two and inserts the key that
+		// separates them.
+		private void splitChild(int index) {
+			Node child = children[index];
+			if (child instanceof BTreeDictionary.Leaf) {
+				Leaf left = (Leaf) child;
+				Leaf right = new Leaf();
+				left.moveTail(left.size / 2, right);
+				right.next = left.next;
+				left.next = right;
+				insert(index, right.keys[0], right);
+			}
+			else {
+				Inner left = (Inner) child;
+				Inner right = new Inner();
+				int middle = left.size / 2;
+				K separator = left.keys[middle];
+				int count = left.size - middle - 1;
+				System.arraycopy(left.keys, middle + 1, right.keys, 0, count);
+				System.arraycopy(left.children, middle + 1, right.children, 0, count + 1);
+				java.util.Arrays.fill(left.keys, middle, left.size, null);
+				java.util.Arrays.fill(left.children, middle + 1, left.size + 1, null);
+				right.size = count;
+				left.size = middle;
+				insert(index, separator, right);
+			}
+		}
+
+		// Gives the minimal child at index an extra key, borrowed from a
+		// sibling or gained by merging with one. Returns the index of the
+		// child that now covers key.
+		private int fixChild(int index, K key) {
+			if ((index > 0) && !children[index - 1].isMinimal()) {
+				borrowFromLeft(index);
+				return index;
+			}
+			if ((index < size) && !children[index + 1].isMinimal()) {
+				borrowFromRight(index);
+				return index;
+			}
+			int leftIndex = (index < size) ? index : index - 1;
+			merge(leftIndex);
+			return leftIndex;
+		}
+
+		private void borrowFromLeft(int index) {
+			Node child = children[index];
+			if (child instanceof BTreeDictionary.Leaf) {
+				Leaf leaf = (Leaf) child;
+				Leaf left = (Leaf) children[index - 1];
+				leaf.insert(0, left.keys[left.size - 1], left.values[left.size - 1]);
+				left.delete(left.size - 1);
+				keys[index - 1] = leaf.keys[0];
+			}
+			else {
+				Inner inner = (Inner) child;
+				Inner left = (Inner) children[index - 1];
+				System.arraycopy(inner.keys, 0, inner.keys, 1, inner.size);
+				System.arraycopy(inner.children, 0, inner.children, 1, inner.size + 1);
+				inner.keys[0] = keys[index - 1];
+				inner.children[0] = left.children[left.size];
+				inner.size++;
+				keys[index - 1] = left.keys[left.size - 1];
+				left.keys[left.size - 1] = null;
+				left.children[left.size] = null;
+				left.size--;
+			}
+		}
+
+		private void borrowFromRight(int index) {
+			Node child = children[index];
+			if (child instanceof BTreeDictionary.Leaf) {
+				Leaf leaf = (Leaf) child;
+				Leaf right = (Leaf) children[index + 1];
+				leaf.insert(leaf.size, right.keys[0], right.values[0]);
+				right.delete(0);
+				keys[index] = right.keys[0];
+			}
+			else {
+				Inner inner = (Inner) child;
+				Inner right = (Inner) children[index + 1];
+				inner.keys[inner.size] = keys[index];
+				inner.children[inner.size + 1] = right.children[0];
+				inner.size++;
+				keys[index] = right.keys[0];
+				System.arraycopy(right.keys, 1, right.keys, 0, right.size - 1);
+				System.arraycopy(right.children, 1, right.children, 0, right.size);
+				right.keys[right.size - 1] = null;
+				right.children[right.size] = null;
+				right.size--;
+			}
+		}
+
+		// Moves everything from children[index + 1] into children[index]
+		// and removes the separator between them.
+		private void merge(int index) {
+			Node child = children[index];
+			if (child instanceof BTreeDictionary.Leaf) {
+				Leaf left = (Leaf) child;
+				Leaf right = (Leaf) children[index + 1];
+				right.moveTail(0, left);
+				left.next = right.next;
+			}
+			else {
+				Inner left = (Inner) child;
+				Inner right = (Inner) children[index + 1];
+				left.keys[left.size] = keys[index];
+				System.arraycopy(right.keys, 0, left.keys, left.size + 1, right.size);
+				System.arraycopy(right.children, 0, left.children, left.size + 1, right.size + 1);
+				left.size += right.size + 1;
+			}
+			delete(index);
+		}
+	}
+
+	//****************************Iterators**************************
+	// Walks the leaves through their next links, from a starting entry up
+	// to an optional bound.
+	private abstract class LeafIterator<T> implements Iterator<T> {
+		private Leaf leaf;          // null once the iteration is over
+		private int index;
+		private int end;            // Index in leaf at which to leave it
+		private final K to;         // Exclusive upper bound, or null for none
+
+		private LeafIterator() {
+			this(firstLeaf, 0, null);
+		}
+
+		private LeafIterator(Leaf startLeaf, int startIndex, K toKey) {
+			to = toKey;
+			enterLeaf(startLeaf, startIndex);
+		}
+
+		public boolean hasNext() {
+			return leaf != null;
+		}
+
+		public T next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			T result = select(leaf, index);
+			index++;
+			if (index >= end) {
+				if (end < leaf.size) {
+					leaf = null;            // Reached the bound inside this leaf
+				}
+				else {
+					enterLeaf(leaf.next, 0);
+				}
+			}
+			return result;
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		abstract T select(Leaf current, int i);
+
+		// Moves to entry nextIndex of nextLeaf, or on to the next leaf if
+		// nextLeaf has no entry there, and finds where to leave that leaf:
+		// at its end, unless its last key reaches the bound. Only the first
+		// leaf can be empty, when the tree is, since every other leaf holds
+		// at least MIN_LEAF entries.
+		private void enterLeaf(Leaf nextLeaf, int nextIndex) {
+			leaf = nextLeaf;
+			index = nextIndex;
+			if ((leaf != null) && (index >= leaf.size)) {
+				leaf = leaf.next;
+				index = 0;
+			}
+			if (leaf == null) {
+				return;
+			}
+			end = leaf.size;
+			if ((to != null) && (to.compareTo(leaf.keys[end - 1]) <= 0)) {
+				int position = leaf.search(to);
+				end = (position >= 0) ? position : -position - 1;
+				if (index >= end) {
+					leaf = null;
+				}
+			}
+		}
+	}
+
+	private class KeyIterator extends LeafIterator<K> {
+		K select(Leaf current, int i) {
+			return current.keys[i];
+		}
+	}
+
+	private class ValueIterator extends LeafIterator<V> {
+		V select(Leaf current, int i) {
+			return current.values[i];
+		}
+	}
+
+	private class EntryIterator extends LeafIterator<Map.Entry<K, V>> {
+		private EntryIterator(Leaf startLeaf, int startIndex, K toKey) {
+			super(startLeaf, startIndex, toKey);
+		}
+
+		Map.Entry<K, V> select(Leaf current, int i) {
+			return new AbstractMap.SimpleImmutableEntry<>(current.keys[i], current.values[i]);
+		}
+	}
+}
@@ -0,0 +1,347 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+   A class that implements a thread-safe sorted dictionary without locks,
+   as a lock-free skip list (Herlihy and Shavit, The Art of
+   Multiprocessor Programming, section 14.4). It has the same methods as
+   SortedLinkedDictionary.
+
+   Each link can be marked by boxing the node it points to in a Marked
+   object. A marked link means the node it leaves is being removed, so
+   no thread may link a new node after it. Traversals that meet marked
+   nodes unlink them with compareAndSet.
+
+   An entry is removed by first setting its value to null with
+   compareAndSet, which decides among racing removers and replacers.
+   Then every link of its node is marked, top level first. getValue
+   never writes and never retries. Iterators are weakly consistent: they
+   skip removed nodes, never throw because of concurrent changes, and
+   see every entry that was present for the whole traversal.
+*/
+public class ConcurrentSkipListDictionary<K extends Comparable<? super K>, V> {
+	private static final int MAX_LEVEL = 16;   // Plenty for 4^16 entries
+	private static final VarHandle LINKS = MethodHandles.arrayElementVarHandle(Object[].class);
+	private static final VarHandle VALUE;
+	static {
+		try {
+			VALUE = MethodHandles.lookup().findVarHandle(Node.class, "value", Object.class);
+		}
+		catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+	private volatile Node<K, V> head;          // Sentinel with a link at every level
+	private final LongAdder numberOfEntries = new LongAdder();
+
+	public ConcurrentSkipListDictionary() {
+		head = new Node<>(null, null, MAX_LEVEL);
+	}
+
+	/** Task: Adds a new entry to the dictionary. If the given search
+	 *        key already exists in the dictionary, replaces the
+	 *        corresponding value.
+	 *  @param key    an object search key of the new entry
+	 *  @param value  an object associated with the search key
+	 *  @return either null if the new entry was added to the dictionary or the
+	 *          value that was associated with key if that value was replaced */
+	public V add(K key, V value) {
+		if (key == null || value == null) {
+			throw new IllegalArgumentException();
+		}
+		Node<K, V> first = head;
+		Node<K, V>[] nodesBefore = newNodeArray();
+		Node<K, V>[] nodesAfter = newNodeArray();
+		int nodeLevel = randomLevel();
+		while (true) {
+			if (findNodes(first, key, nodesBefore, nodesAfter)) {
+				Node<K, V> existing = nodesAfter[0];
+				V oldValue = existing.value;
+				if (oldValue == null) {
+					markLinks(existing);          // Help a removal, then retry
+				}
+				else if (VALUE.compareAndSet(existing, oldValue, value)) {
+					return oldValue;
+				}
+				continue;
+			}
+			Node<K, V> newNode = new Node<>(key, value, nodeLevel);
+			for (int i = 0; i < nodeLevel; i++) {
+				newNode.next[i] = nodesAfter[i];
+			}
+			// Linking level 0 puts the entry in the dictionary
+			if (!LINKS.compareAndSet(nodesBefore[0].next, 0, nodesAfter[0], newNode)) {
+				continue;
+			}
+			numberOfEntries.increment();
+			// Higher levels only speed up searches; link them as we can
+			for (int i = 1; i < nodeLevel; i++) {
+				while (true) {
+					Object link = LINKS.getVolatile(newNode.next, i);
+					if (link instanceof Marked) {
+						return null;               // Already being removed
+					}
+					if (((link == nodesAfter[i])
+							|| LINKS.compareAndSet(newNode.next, i, link, nodesAfter[i]))
+							&& LINKS.compareAndSet(nodesBefore[i].next, i, nodesAfter[i], newNode)) {
+						break;
+					}
+					findNodes(first, key, nodesBefore, nodesAfter);
+				}
+			}
+			return null;
+		}
+	}
+
+	/** Task: Removes a specific entry from the dictionary.
+	 *  @param key  an object search key of the entry to be removed
+	 *  @return either the value that was associated with the search key
+	 *          or null if no such object exists */
+	public V remove(K key) {
+		Node<K, V> first = head;
+		Node<K, V>[] nodesBefore = newNodeArray();
+		Node<K, V>[] nodesAfter = newNodeArray();
+		while (findNodes(first, key, nodesBefore, nodesAfter)) {
+			Node<K, V> node = nodesAfter[0];
+			V oldValue = node.value;
+			if (oldValue == null) {
+				// Another thread is removing it; help, then look again
+				markLinks(node);
+			}
+			else if (VALUE.compareAndSet(node, oldValue, null)) {
+				numberOfEntries.decrement();
+				markLinks(node);
+				findNodes(first, key, nodesBefore, nodesAfter);   // Unlinks it
+				return oldValue;
+			}
+		}
+		return null;
+	}
+
+	/** Task: Retrieves the value associated with a given search key.
+	 *  @param key  an object search key of the entry to be retrieved
+	 *  @return either the value that is associated with the search key
+	 *          or null if no such object exists */
+	@SuppressWarnings("unchecked")   // Links hold nodes of this dictionary
+	public V getValue(K key) {
+		Node<K, V> nodeBefore = head;
+		Node<K, V> currentNode = null;
+		for (int i = MAX_LEVEL - 1; i >= 0; i--) {
+			currentNode = nodeAt(nodeBefore, i);
+			while (currentNode != null) {
+				// Step over removed nodes without unlinking them
+				Object link = LINKS.getVolatile(currentNode.next, i);
+				while ((link instanceof Marked) && (((Marked) link).node != null)) {
+					currentNode = (Node<K, V>) ((Marked) link).node;
+					link = LINKS.getVolatile(currentNode.next, i);
+				}
+				if (link instanceof Marked) {
+					currentNode = null;         // Only removed nodes remain
+				}
+				else if (key.compareTo(currentNode.key) > 0) {
+					nodeBefore = currentNode;
+					currentNode = (Node<K, V>) link;
+					continue;
+				}
+				break;
+			}
+		}
+		if ((currentNode != null) && key.equals(currentNode.key)) {
+			return currentNode.value;
+		}
+		return null;
+	}
+
+	/** Task: Sees whether a specific entry is in the dictionary.
+	 *  @param key  an object search key of the desired entry
+	 *  @return true if key is associated with an entry in the
+	 *          dictionary */
+	public boolean contains(K key) {
+		return getValue(key) != null;
+	}
+
+	/** Task: Sees whether the dictionary is empty.
+	 *  @return true if the dictionary is empty */
+	public boolean isEmpty() {
+		return getSize() == 0;
+	}
+
+	/** Task: Gets the size of the dictionary. Under concurrent updates the
+	 *        result is only an estimate.
+	 *  @return the number of entries (key-value pairs) currently
+	 *          in the dictionary */
+	public int getSize() {
+		return (int) Math.max(0, numberOfEntries.sum());
+	}
+
+	/** Task: Removes all entries from the dictionary by starting a new
+	 *        list. Updates that race with clear may be lost. */
+	public final void clear() {
+		head = new Node<>(null, null, MAX_LEVEL);
+		numberOfEntries.reset();
+	}
+
+	/** Task: Creates a weakly consistent iterator that traverses the
+	 *        search keys in ascending order.
+	 *  @return an iterator that provides sequential access to the search
+	 *          keys in the dictionary */
+	public Iterator<K> getKeyIterator() {
+		return new KeyIterator();
+	}
+
+	/** Task: Creates a weakly consistent iterator that traverses the
+	 *        values in the ascending order of their keys.
+	 *  @return an iterator that provides sequential access to the values
+	 *          in the dictionary */
+	public Iterator<V> getValueIterator() {
+		return new ValueIterator();
+	}
+
+	// Fills nodesBefore[i] and nodesAfter[i] with the nodes at level i
+	// between which key belongs, unlinking marked nodes on the way.
+	// Returns true if nodesAfter[0] holds key.
+	@SuppressWarnings("unchecked")   // Links hold nodes of this dictionary
+	private boolean findNodes(Node<K, V> first, K key, Node<K, V>[] nodesBefore,
+			Node<K, V>[] nodesAfter) {
+		retry:
+		while (true) {
+			Node<K, V> nodeBefore = first;
+			Node<K, V> currentNode = null;
+			for (int i = MAX_LEVEL - 1; i >= 0; i--) {
+				currentNode = nodeAt(nodeBefore, i);
+				while (currentNode != null) {
+					Object link = LINKS.getVolatile(currentNode.next, i);
+					while (link instanceof Marked) {
+						// currentNode is being removed; unlink it at this level
+						Node<K, V> nodeAfter = (Node<K, V>) ((Marked) link).node;
+						if (!LINKS.compareAndSet(nodeBefore.next, i, currentNode, nodeAfter)) {
+							continue retry;
+						}
+						currentNode = nodeAfter;
+						if (currentNode == null) {
+							break;
+						}
+						link = LINKS.getVolatile(currentNode.next, i);
+					}
+					if ((currentNode == null) || (key.compareTo(currentNode.key) <= 0)) {
+						break;
+					}
+					nodeBefore = currentNode;
+					currentNode = (Node<K, V>) link;
+				}
+				nodesBefore[i] = nodeBefore;
+				nodesAfter[i] = currentNode;
+			}
+			return (currentNode != null) && key.equals(currentNode.key);
+		}
+	}
+
+	// Marks every link of node, top level first, so that no node can be
+	// linked after it; level 0 last, after which it is out of the list.
+	private void markLinks(Node<K, V> node) {
+		for (int i = node.next.length - 1; i >= 0; i--) {
+			Object link = LINKS.getVolatile(node.next, i);
+			while (!(link instanceof Marked)
+					&& !LINKS.compareAndSet(node.next, i, link, new Marked(link))) {
+				link = LINKS.getVolatile(node.next, i);
+			}
+		}
+	}
+
+	// Returns the node after node at level i, whether or not the link is
+	// marked.
+	@SuppressWarnings("unchecked")
+	private static <K, V> Node<K, V> nodeAt(Node<K, V> node, int i) {
+		Object link = LINKS.getVolatile(node.next, i);
+		return (Node<K, V>) ((link instanceof Marked) ? ((Marked) link).node : link);
+	}
+
+	// Returns a level from 1 to MAX_LEVEL, each one a quarter as likely as
+	// the one below.
+	private static int randomLevel() {
+		int random = ThreadLocalRandom.current().nextInt() | (1 << 30);
+		return Math.min(MAX_LEVEL, 1 + Integer.numberOfTrailingZeros(random) / 2);
+	}
+
+	// The cast is safe because the new array contains null entries
+	@SuppressWarnings("unchecked")
+	private static <K, V> Node<K, V>[] newNodeArray() {
+		return (Node<K, V>[]) new Node<?, ?>[MAX_LEVEL];
+	}
+
+	// Traverses level 0, skipping nodes whose entry has been removed.
+	private abstract class EntryIterator<T> implements Iterator<T> {
+		private Node<K, V> nextNode;
+		private V nextValue;        // Read when nextNode was found, so never null
+
+		private EntryIterator() {
+			nextNode = head;
+			advance();
+		}
+
+		public boolean hasNext() {
+			return nextNode != null;
+		}
+
+		public T next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			T result = select(nextNode.key, nextValue);
+			advance();
+			return result;
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		abstract T select(K key, V value);
+
+		private void advance() {
+			do {
+				nextNode = nodeAt(nextNode, 0);
+				nextValue = (nextNode == null) ? null : nextNode.value;
+			} while ((nextNode != null) && (nextValue == null));
+		}
+	}
+
+	private class KeyIterator extends EntryIterator<K> {
+		K select(K key, V value) {
+			return key;
+		}
+	}
+
+	private class ValueIterator extends EntryIterator<V> {
+		V select(K key, V value) {
+			return value;
+		}
+	}
+
+	private static final class Node<K, V> {
+		private final K key;
+		private volatile V value;       // null once the entry is removed
+		// next[i] is the following node at level i, or a Marked box around
+		// it once this node is being removed
+		private final Object[] next;
+
+		private Node(K searchKey, V dataValue, int nodeLevel) {
+			key = searchKey;
+			value = dataValue;
+			next = new Object[nodeLevel];
+		}
+	}
+
+	// A marked link; never changes once set.
+	private static final class Marked {
+		private final Node<?, ?> node;
+
+		private Marked(Object link) {
+			node = (Node<?, ?>) link;
+		}
+	}
+}
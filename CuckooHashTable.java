@@ -0,0 +1,505 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+   A class that implements a dictionary by using bucketized cuckoo
+   hashing. Each key has two candidate buckets, chosen by two hash
+   functions, and each bucket holds BUCKET_SIZE slots. A key is only ever
+   stored in one of its two buckets or in a small stash, so a lookup
+   examines at most 2 * BUCKET_SIZE slots and the stash, however full the
+   table is. That bounds the worst case, not just the average.
+
+   When both buckets of a new key are full, add evicts a random entry of
+   one bucket and moves it to its other bucket, repeating along a random
+   walk of at most MAX_KICKS moves. An entry that is still homeless goes
+   into the stash. If the stash is full too, the table grows.
+
+   Keys whose 32-bit hashes are equal share both buckets in every table,
+   so once 2 * BUCKET_SIZE of them fill their buckets, no eviction or
+   growth can make room for another. Such a key goes to a small overflow
+   table, as does any homeless entry of a table too lightly loaded for
+   growing to help. The overflow table is only searched when it exists
+   and a lookup misses.
+*/
+public class CuckooHashTable<K, V> implements DictionaryInterface<K, V> {
+	private int numEntries;
+	private static final int BUCKET_SIZE = 4;      // Slots per bucket
+	private static final int STASH_SIZE = 4;
+	private static final int MAX_KICKS = 500;      // Evictions before using the stash
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final int MAX_BUCKETS = 1 << 28;
+	private static final double DEFAULT_LOAD_FACTOR = 0.9;
+	// Slots of bucket b are keys[b * BUCKET_SIZE] to keys[b * BUCKET_SIZE + 3];
+	// keys[i] is null when slot i is empty
+	private K[] keys;
+	private V[] values;
+	private int numBuckets;
+	// Entries that found no room in either bucket
+	private K[] stashKeys;
+	private V[] stashValues;
+	private int stashSize;
+	// Entries that no table size could place, or null if none
+	private HashTableOpenAddressing<K, V> overflow;
+	private double loadFactor;
+	private int resizeThreshold;                   // Entries beyond which the table grows
+	private int randomState = 0x2545F491;          // Picks eviction victims
+	private HashStrategy<? super K> hashStrategy;
+
+	public CuckooHashTable() {
+		this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+	}
+
+	public CuckooHashTable(int initialCapacity, double loadFactorIn) {
+		this(initialCapacity, loadFactorIn, HashStrategy.murmur3());
+	}
+
+	/** @param loadFactorIn  the fraction of slots that may be filled before
+	 *                       the table grows; with four slots per bucket,
+	 *                       inserts start failing into the stash at about
+	 *                       0.95, so it must be between 0 and 0.95 */
+	public CuckooHashTable(int initialCapacity, double loadFactorIn,
+			HashStrategy<? super K> hashStrategyIn) {
+		if (loadFactorIn <= 0 || loadFactorIn > 0.95 || initialCapacity <= 0) {
+			throw new IllegalArgumentException("Initial capacity must be " +
+					"greater than 0 and load factor between 0 and 0.95");
+		}
+		else if (hashStrategyIn == null) {
+			throw new IllegalArgumentException("Hash strategy must not be null");
+		}
+		else if (initialCapacity / loadFactorIn > (double) MAX_BUCKETS * BUCKET_SIZE) {
+			throw new IllegalStateException("Attempt to create a dictionary " +
+					"whose capacity is larger than " + MAX_BUCKETS * BUCKET_SIZE);
+		}
+		loadFactor = loadFactorIn;
+		hashStrategy = hashStrategyIn;
+		allocate(Math.max(1, (int) Math.ceil(initialCapacity / loadFactor / BUCKET_SIZE)));
+	}
+
+	/** Task: Adds a new entry to the dictionary. If the given search
+	 *        key already exists in the dictionary, replaces the
+	 *        corresponding value.
+	 *  @param key    an object search key of the new entry
+	 *  @param value  an object associated with the search key
+	 *  @return either null if the new entry was added to the dictionary or the
+	 *          value that was associated with key if that value was replaced */
+	@Override
+	public V add(K key, V value) {
+		if (key == null || value == null) {
+			throw new IllegalArgumentException();
+		}
+		V oldValue = null;
+		int hash = hashStrategy.hash(key);
+		int index = locate(key, hash);
+		if (index != -1) {
+			oldValue = values[index];
+			values[index] = value;
+			return oldValue;
+		}
+		index = locateInStash(key);
+		if (index != -1) {
+			oldValue = stashValues[index];
+			stashValues[index] = value;
+			return oldValue;
+		}
+		if ((overflow != null) && overflow.contains(key)) {
+			return overflow.add(key, value);
+		}
+		numEntries++;
+		if (numEntries > resizeThreshold) {
+			enlargeHashTable();
+		}
+		insert(key, value);
+		return oldValue;
+	}
+
+	/** Task: Removes a specific entry from the dictionary.
+	 *  @param key  an object search key of the entry to be removed
+	 *  @return either the value that was associated with the search key
+	 *          or null if no such object exists */
+	@Override
+	public V remove(K key) {
+		V removedValue = null;
+		int index = locate(key, hashStrategy.hash(key));
+		if (index != -1) {
+			removedValue = values[index];
+			keys[index] = null;
+			values[index] = null;
+			numEntries--;
+			// The freed slot may give a stashed entry a home again
+			for (int i = stashSize - 1; i >= 0; i--) {
+				int hash = hashStrategy.hash(stashKeys[i]);
+				if (placeInBucket(getFirstBucket(hash), stashKeys[i], stashValues[i])
+						|| placeInBucket(getSecondBucket(hash), stashKeys[i], stashValues[i])) {
+					removeFromStash(i);
+				}
+			}
+			return removedValue;
+		}
+		index = locateInStash(key);
+		if (index != -1) {
+			removedValue = stashValues[index];
+			removeFromStash(index);
+			numEntries--;
+		}
+		else if (overflow != null) {
+			removedValue = overflow.remove(key);
+			if (removedValue != null) {
+				numEntries--;
+			}
+		}
+		return removedValue;
+	}
+
+	/** Task: Retrieves the value associated with a given search key.
+	 *  @param key  an object search key of the entry to be retrieved
+	 *  @return either the value that is associated with the search key
+	 *          or null if no such object exists */
+	@Override
+	public V getValue(K key) {
+		int index = locate(key, hashStrategy.hash(key));
+		if (index != -1) {
+			return values[index];
+		}
+		if (stashSize > 0) {
+			index = locateInStash(key);
+			if (index != -1) {
+				return stashValues[index];
+			}
+		}
+		return (overflow == null) ? null : overflow.getValue(key);
+	}
+
+	/** Task: Sees whether a specific entry is in the dictionary.
+	 *  @param key  an object search key of the desired entry
+	 *  @return true if key is associated with an entry in the
+	 *          dictionary */
+	@Override
+	public boolean contains(K key) {
+		return getValue(key) != null;
+	}
+
+	/** Task: Creates an iterator that traverses all search keys in the
+	 *        dictionary.
+	 *  @return an iterator that provides sequential access to the search
+	 *          keys in the dictionary */
+	@Override
+	public Iterator<K> getKeyIterator() {
+		return new EntryIterator<>(keys, stashKeys,
+				(overflow == null) ? null : overflow.getKeyIterator());
+	}
+
+	/** Task: Creates an iterator that traverses all values in the
+	 *        dictionary.
+	 *  @return an iterator that provides sequential access to the values
+	 *          in the dictionary */
+	@Override
+	public Iterator<V> getValueIterator() {
+		return new EntryIterator<>(values, stashValues,
+				(overflow == null) ? null : overflow.getValueIterator());
+	}
+
+	/** Task: Gets the size of the dictionary.
+	 *  @return the number of entries (key-value pairs) currently
+	 *          in the dictionary */
+	@Override
+	public int getSize() {
+		return numEntries;
+	}
+
+	/** Task: Sees whether the dictionary is empty.
+	 *  @return true if the dictionary is empty */
+	@Override
+	public boolean isEmpty() {
+		return numEntries == 0;
+	}
+
+	/** Task: Sees whether the dictionary is full.
+	 *  @return false, since the table grows as needed */
+	@Override
+	public boolean isFull() {
+		return false;
+	}
+
+	/** Task: Removes all entries from the dictionary. */
+	@Override
+	public void clear() {
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = null;
+			values[i] = null;
+		}
+		while (stashSize > 0) {
+			removeFromStash(stashSize - 1);
+		}
+		overflow = null;
+		numEntries = 0;
+	}
+
+	// Returns the average number of places examined to find each entry:
+	// 1 for its first bucket, 2 for its second, 3 for the stash and 4 for
+	// the overflow table.
+	double getAverageProbeLength() {
+		long totalProbes = 3L * stashSize + 4L * getNumOverflowed();
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != null) {
+				int bucket = i / BUCKET_SIZE;
+				totalProbes += (bucket == getFirstBucket(hashStrategy.hash(keys[i]))) ? 1 : 2;
+			}
+		}
+		return (numEntries == 0) ? 0 : (double) totalProbes / numEntries;
+	}
+
+	// Returns the slot holding key in either of its buckets, or -1.
+	private int locate(K key, int hash) {
+		int index = getFirstBucket(hash) * BUCKET_SIZE;
+		for (int i = 0; i < BUCKET_SIZE; i++, index++) {
+			if (key.equals(keys[index])) {
+				return index;
+			}
+		}
+		index = getSecondBucket(hash) * BUCKET_SIZE;
+		for (int i = 0; i < BUCKET_SIZE; i++, index++) {
+			if (key.equals(keys[index])) {
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	private int locateInStash(K key) {
+		for (int i = 0; i < stashSize; i++) {
+			if (key.equals(stashKeys[i])) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	// Stores a key known to be absent, evicting entries if both of its
+	// buckets are full.
+	private void insert(K key, V value) {
+		int hash = hashStrategy.hash(key);
+		int bucket = getFirstBucket(hash);
+		int other = getSecondBucket(hash);
+		if (placeInBucket(bucket, key, value) || placeInBucket(other, key, value)) {
+			return;
+		}
+		if (isSaturated(hash, bucket, other)) {
+			addToOverflow(key, value);
+			return;
+		}
+		if ((nextRandom() & 1) != 0) {
+			bucket = other;
+		}
+		for (int kicks = 0; kicks < MAX_KICKS; kicks++) {
+			// Swap the carried entry with a random one of the full bucket,
+			// then carry the evicted entry to its other bucket
+			int victim = bucket * BUCKET_SIZE + (nextRandom() & (BUCKET_SIZE - 1));
+			K evictedKey = keys[victim];
+			V evictedValue = values[victim];
+			keys[victim] = key;
+			values[victim] = value;
+			key = evictedKey;
+			value = evictedValue;
+			hash = hashStrategy.hash(key);
+			int first = getFirstBucket(hash);
+			bucket = (first == bucket) ? getSecondBucket(hash) : first;
+			if (placeInBucket(bucket, key, value)) {
+				return;
+			}
+		}
+		if (stashSize < STASH_SIZE) {
+			stashKeys[stashSize] = key;
+			stashValues[stashSize] = value;
+			stashSize++;
+		}
+		else if (canGrow()) {
+			enlargeHashTable();
+			insert(key, value);
+		}
+		else {
+			addToOverflow(key, value);
+		}
+	}
+
+	// Returns true if both buckets hold only keys with the given hash.
+	// Every table sends those keys to the same two buckets, so no eviction
+	// or growth can make room for one more.
+	private boolean isSaturated(int hash, int bucket, int other) {
+		if (bucket == other) {
+			return false;                  // A larger table may split them
+		}
+		for (int i = 0; i < BUCKET_SIZE; i++) {
+			if ((hashStrategy.hash(keys[bucket * BUCKET_SIZE + i]) != hash)
+					|| (hashStrategy.hash(keys[other * BUCKET_SIZE + i]) != hash)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// Returns true if growing may find a homeless entry a place. A random
+	// walk fails this often only near the load factor; in a table less
+	// than half that full, the failure comes from keys whose hashes
+	// cluster, which a larger table would not separate either.
+	private boolean canGrow() {
+		return (numBuckets < MAX_BUCKETS)
+				&& (numEntries - getNumOverflowed() > resizeThreshold / 2);
+	}
+
+	private void addToOverflow(K key, V value) {
+		if (overflow == null) {
+			overflow = new HashTableOpenAddressing<>(5, 0.75, hashStrategy);
+		}
+		overflow.add(key, value);
+	}
+
+	private int getNumOverflowed() {
+		return (overflow == null) ? 0 : overflow.getSize();
+	}
+
+	// Puts the entry in a free slot of the bucket; returns false if the
+	// bucket is full.
+	private boolean placeInBucket(int bucket, K key, V value) {
+		int index = bucket * BUCKET_SIZE;
+		for (int i = 0; i < BUCKET_SIZE; i++, index++) {
+			if (keys[index] == null) {
+				keys[index] = key;
+				values[index] = value;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void removeFromStash(int index) {
+		stashSize--;
+		stashKeys[index] = stashKeys[stashSize];
+		stashValues[index] = stashValues[stashSize];
+		stashKeys[stashSize] = null;
+		stashValues[stashSize] = null;
+	}
+
+	private int getFirstBucket(int hash) {
+		return (int) (((hash & 0xFFFFFFFFL) * numBuckets) >>> 32);
+	}
+
+	// Remixes the hash so the second bucket is independent of the first.
+	private int getSecondBucket(int hash) {
+		int mixed = HashStrategy.fmix32(hash ^ 0x9E3779B9);
+		return (int) (((mixed & 0xFFFFFFFFL) * numBuckets) >>> 32);
+	}
+
+	// Xorshift; good enough to keep eviction walks from cycling.
+	private int nextRandom() {
+		randomState ^= randomState << 13;
+		randomState ^= randomState >>> 17;
+		randomState ^= randomState << 5;
+		return randomState;
+	}
+
+	private void enlargeHashTable() {
+		if (numBuckets >= MAX_BUCKETS) {
+			throw new IllegalStateException("Attempt to enlarge a dictionary " +
+					"beyond its maximum capacity of " + MAX_BUCKETS * BUCKET_SIZE);
+		}
+		K[] oldKeys = keys;
+		V[] oldValues = values;
+		K[] oldStashKeys = stashKeys;
+		V[] oldStashValues = stashValues;
+		int oldStashSize = stashSize;
+		allocate(Math.min(numBuckets * 2, MAX_BUCKETS));
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != null) {
+				insert(oldKeys[i], oldValues[i]);
+			}
+		}
+		for (int i = 0; i < oldStashSize; i++) {
+			insert(oldStashKeys[i], oldStashValues[i]);
+		}
+	}
+
+	// Allocates empty buckets and an empty stash.
+	private void allocate(int bucketCount) {
+		numBuckets = bucketCount;
+		// The casts are safe because the new arrays contain null entries
+		@SuppressWarnings("unchecked")
+		K[] tempKeys = (K[]) new Object[bucketCount * BUCKET_SIZE];
+		@SuppressWarnings("unchecked")
+		V[] tempValues = (V[]) new Object[bucketCount * BUCKET_SIZE];
+		@SuppressWarnings("unchecked")
+		K[] tempStashKeys = (K[]) new Object[STASH_SIZE];
+		@SuppressWarnings("unchecked")
+		V[] tempStashValues = (V[]) new Object[STASH_SIZE];
+		keys = tempKeys;
+		values = tempValues;
+		stashKeys = tempStashKeys;
+		stashValues = tempStashValues;
+		stashSize = 0;
+		resizeThreshold = (int) (keys.length * loadFactor);
+	}
+
+	public String toString() {
+		String result = "";
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != null) {
+				result += keys[i] + " " + values[i] + "\n";
+			}
+		}
+		for (int i = 0; i < stashSize; i++) {
+			result += stashKeys[i] + " " + stashValues[i] + " (stash)\n";
+		}
+		if (overflow != null) {
+			Iterator<K> keyIterator = overflow.getKeyIterator();
+			Iterator<V> valueIterator = overflow.getValueIterator();
+			while (keyIterator.hasNext()) {
+				result += keyIterator.next() + " " + valueIterator.next() + " (overflow)\n";
+			}
+		}
+		return result;
+	}
+
+	//****************************EntryIterator**************************
+	// Traverses the occupied slots of keys or values, then the stash, then
+	// the overflow table.
+	private class EntryIterator<T> implements Iterator<T> {
+		private final T[] slots;
+		private final T[] stash;
+		private final Iterator<T> overflowIterator; // null if no overflow
+		private int currentIndex;   // Current position in slots, then stash
+		private int numberLeft;     // Number of entries left in iteration
+
+		private EntryIterator(T[] slotsIn, T[] stashIn, Iterator<T> overflowIteratorIn) {
+			slots = slotsIn;
+			stash = stashIn;
+			overflowIterator = overflowIteratorIn;
+			currentIndex = 0;
+			numberLeft = numEntries;
+		}
+
+		public boolean hasNext() {
+			return numberLeft > 0;
+		}
+
+		public T next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			numberLeft--;
+			// Skip empty slots
+			while ((currentIndex < slots.length) && (keys[currentIndex] == null)) {
+				currentIndex++;
+			}
+			if (currentIndex < slots.length) {
+				return slots[currentIndex++];
+			}
+			if (currentIndex - slots.length < stashSize) {
+				return stash[currentIndex++ - slots.length];
+			}
+			return overflowIterator.next();
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -0,0 +1,52 @@
+/**
+   An interface for the hash-spreading stage of a hash table. A strategy
+   turns a key into a well-mixed 32-bit hash whose high bits are as
+   random as its low bits, so that the table can reduce it to an index
+   with a multiply-shift instead of a modulo.
+*/
+public interface HashStrategy<K> {
+
+	/** Task: Computes the mixed hash of a given key.
+	 *  @param key  an object search key; never null
+	 *  @return a 32-bit hash with all bits well distributed */
+	int hash(K key);
+
+	/** Task: Gets the default strategy, which runs key.hashCode() through
+	 *        the MurmurHash3 32-bit finalizer.
+	 *  @return a strategy suitable for any key type */
+	static <K> HashStrategy<K> murmur3() {
+		return key -> fmix32(key.hashCode());
+	}
+
+	/** Task: Gets a strategy that multiplies key.hashCode() by the 32-bit
+	 *        golden ratio. Cheaper than murmur3(), and sufficient for keys
+	 *        whose hashCode() values are already distinct, such as Integer.
+	 *  @return a Fibonacci-hashing strategy */
+	static <K> HashStrategy<K> fibonacci() {
+		return key -> key.hashCode() * 0x9E3779B9;
+	}
+
+	/** Task: Gets a strategy for Long keys that mixes all 64 bits of the
+	 *        value rather than the folded Long.hashCode().
+	 *  @return a strategy for Long keys */
+	static HashStrategy<Long> longMix() {
+		return key -> mix64(key.longValue());
+	}
+
+	// MurmurHash3 fmix32: every input bit affects every output bit.
+	static int fmix32(int h) {
+		h ^= h >>> 16;
+		h *= 0x85EBCA6B;
+		h ^= h >>> 13;
+		h *= 0xC2B2AE35;
+		h ^= h >>> 16;
+		return h;
+	}
+
+	// SplitMix64 finalizer (Stafford variant 13), folded to 32 bits.
+	static int mix64(long h) {
+		h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+		h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+		return (int) (h ^ (h >>> 31));
+	}
+}
@@ -0,0 +1,1197 @@
+/**
+   A driver that measures the behavior of HashTableOpenAddressing.
+   Run with: java HashTableBenchmark [section] [sizes...]
+   where section is one of probes, scale, latency,
+   lookup, footprint, throughput, primitive, offheap, concurrent, lockfree,
+   stamped, snapshot, perfect, cuckoo, hopscotch, collisions, batch,
+   multiget, hashcache;
+   with no section all run.
+   The scale section needs a large heap, for example -Xmx16g for 50M keys;
+   the offheap section also needs -XX:MaxDirectMemorySize, about 6g for
+   100M keys.
+*/
+public class HashTableBenchmark {
+	private static final double LOAD = 0.75;
+
+	public static void main(String[] args) {
+		String section = (args.length > 0) ? args[0] : "all";
+		if ("all".equals(section) || "probes".equals(section)) {
+			probeDistribution();
+		}
+		if ("all".equals(section) || "scale".equals(section)) {
+			scale(sizes(args, 1_000_000, 10_000_000, 50_000_000));
+		}
+		if ("all".equals(section) || "latency".equals(section)) {
+			addLatency(sizes(args, 4_000_000));
+			removeLatency(sizes(args, 1_000_000));
+		}
+		if ("all".equals(section) || "lookup".equals(section)) {
+			lookupLatency(sizes(args, 1_000_000));
+		}
+		if ("all".equals(section) || "footprint".equals(section)) {
+			footprint(sizes(args, 1_000_000));
+		}
+		if ("all".equals(section) || "throughput".equals(section)) {
+			throughput(sizes(args, 1_000_000));
+		}
+		if ("all".equals(section) || "primitive".equals(section)) {
+			primitive(sizes(args, 1_000_000));
+		}
+		if ("all".equals(section) || "offheap".equals(section)) {
+			offHeap(sizes(args, 100_000_000));
+		}
+		if ("all".equals(section) || "concurrent".equals(section)) {
+			concurrent(sizes(args, 1_000_000));
+		}
+		if ("all".equals(section) || "lockfree".equals(section)) {
+			lockFree(sizes(args, 1_000_000));
+		}
+		if ("all".equals(section) || "stamped".equals(section)) {
+			stamped(sizes(args, 1_000_000));
+		}
+		if ("all".equals(section) || "snapshot".equals(section)) {
+			snapshot(sizes(args, 1_000_000));
+		}
+		if ("all".equals(section) || "perfect".equals(section)) {
+			perfect(sizes(args, 10_000_000));
+		}
+		if ("all".equals(section) || "cuckoo".equals(section)) {
+			cuckoo(sizes(args, 1_000_000));
+		}
+		if ("all".equals(section) || "hopscotch".equals(section)) {
+			hopscotch(sizes(args, 1_000_000));
+		}
+		if ("all".equals(section) || "collisions".equals(section)) {
+			collisions(sizes(args, 16, 100, 1_000));
+		}
+		if ("all".equals(section) || "batch".equals(section)) {
+			batch(sizes(args, 1_000_000));
+		}
+		if ("all".equals(section) || "multiget".equals(section)) {
+			multiGet(sizes(args, 1_000_000, 20_000_000));
+		}
+		if ("all".equals(section) || "hashcache".equals(section)) {
+			hashCache(sizes(args, 1_000_000));
+		}
+	}
+
+	// Returns the total time, in ms, the collectors have spent so far.
+	private static long gcMillis() {
+		long total = 0;
+		for (java.lang.management.GarbageCollectorMXBean collector
+				: java.lang.management.ManagementFactory.getGarbageCollectorMXBeans()) {
+			total += collector.getCollectionTime();
+		}
+		return total;
+	}
+
+	// Reads key counts from args[1..], or uses the given defaults.
+	private static int[] sizes(String[] args, int... defaults) {
+		if (args.length < 2) {
+			return defaults;
+		}
+		int[] result = new int[args.length - 1];
+		for (int i = 1; i < args.length; i++) {
+			result[i - 1] = Integer.parseInt(args[i].replace("_", ""));
+		}
+		return result;
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	// Fills tables to 0.75 load with sequential, strided and string keys
+	// and reports the average probe length under each hash strategy, then
+	// what random hashes give at that load. An average near 1 is out of
+	// reach for keys without structure: quadratic probing expects about
+	// 2.0, and even ideal uniform probing expects 1.85. Only keys that a
+	// strategy maps with no collisions, like sequential keys under
+	// Fibonacci hashing, come close to 1.
+	private static void probeDistribution() {
+		int numKeys = 7000;
+		int capacity = (int) Math.ceil(numKeys / LOAD);
+
+		System.out.println("Average probe length at load " + LOAD + ":");
+		System.out.printf("%-12s %12s %12s %12s%n", "strategy", "sequential",
+				"stride-1024", "string");
+		String[] names = {"murmur3", "fibonacci"};
+		for (String name : names) {
+			double sequential = probeLength(name, capacity, numKeys, 1);
+			double strided = probeLength(name, capacity, numKeys, 1024);
+			HashTableOpenAddressing<String, Integer> strings =
+					new HashTableOpenAddressing<>(capacity, LOAD, strategy(name));
+			for (int i = 0; i < numKeys; i++) {
+				strings.add("key-" + i, i);
+			}
+			System.out.printf("%-12s %12.3f %12.3f %12.3f%n", name, sequential,
+					strided, strings.getAverageProbeLength());
+		}
+		// Successful-search costs for random hashes (Knuth, The Art of
+		// Computer Programming, volume 3, section 6.4)
+		double quadratic = 1 - Math.log(1 - LOAD) - LOAD / 2;
+		double uniform = -Math.log(1 - LOAD) / LOAD;
+		double linear = (1 + 1 / (1 - LOAD)) / 2;
+		System.out.printf("Expected with random hashes: quadratic %.3f, "
+				+ "uniform %.3f, linear %.3f%n", quadratic, uniform, linear);
+	}
+
+	private static double probeLength(String name, int capacity, int numKeys,
+			int stride) {
+		HashTableOpenAddressing<Integer, Integer> table =
+				new HashTableOpenAddressing<>(capacity, LOAD, strategy(name));
+		for (int i = 0; i < numKeys; i++) {
+			table.add(i * stride, i);
+		}
+		return table.getAverageProbeLength();
+	}
+
+	private static <K> HashStrategy<K> strategy(String name) {
+		return "fibonacci".equals(name) ? HashStrategy.fibonacci()
+				: HashStrategy.murmur3();
+	}
+
+	// Grows a default-sized table to each key count and reports insert
+	// throughput and the heap the finished table retains.
+	private static void scale(int[] sizes) {
+		System.out.println("Insert throughput and retained heap:");
+		System.out.printf("%-12s %14s %14s %14s%n", "keys", "Mops/s",
+				"heap (MB)", "bytes/entry");
+		for (int numKeys : sizes) {
+			long before = usedHeap();
+			long start = System.nanoTime();
+			HashTableOpenAddressing<Integer, Integer> table =
+					new HashTableOpenAddressing<>();
+			for (int i = 0; i < numKeys; i++) {
+				table.add(i, i);
+			}
+			long elapsed = System.nanoTime() - start;
+			long retained = usedHeap() - before;
+			System.out.printf("%-12d %14.2f %14.1f %14.1f%n", table.getSize(),
+					numKeys * 1e3 / elapsed, retained / (1024.0 * 1024.0),
+					(double) retained / numKeys);
+		}
+	}
+
+	// Times every add() while a table grows from its default size, once
+	// rehashing everything at once and once rehashing incrementally. The
+	// "grow" column is the slowest of the adds that enlarged the table,
+	// which is the pause incremental rehashing is meant to remove; "gc ms"
+	// is the collectors' time during the run, which lands on random adds
+	// and swamps the max column. For numbers free of GC, run with
+	// -XX:+UnlockExperimentalVMOptions -XX:+UseEpsilonGC -Xmx3g.
+	private static void addLatency(int[] sizes) {
+		System.out.println("add() latency while growing (ns):");
+		System.out.printf("%-12s %-12s %10s %10s %10s %12s %12s %8s%n", "keys",
+				"rehash", "p50", "p99", "p99.9", "max", "grow", "gc ms");
+		for (int numKeys : sizes) {
+			for (int round = 0; round < 2; round++) { // First round is warm-up
+				for (boolean incremental : new boolean[] {false, true}) {
+					long[] latencies = new long[numKeys];
+					long growMax = 0;
+					HashTableOpenAddressing<Integer, Integer> table =
+							new HashTableOpenAddressing<>();
+					table.setIncrementalRehashing(incremental);
+					long gcBefore = gcMillis();
+					for (int i = 0; i < numKeys; i++) {
+						int capacity = table.getCapacity();
+						long start = System.nanoTime();
+						table.add(i, i);
+						latencies[i] = System.nanoTime() - start;
+						if (table.getCapacity() != capacity) {
+							growMax = Math.max(growMax, latencies[i]);
+						}
+					}
+					long gcTime = gcMillis() - gcBefore;
+					if (round == 1) {
+						java.util.Arrays.sort(latencies);
+						System.out.printf("%-12d %-12s %10d %10d %10d %12d %12d %8d%n",
+								numKeys, incremental ? "incremental" : "all-at-once",
+								percentile(latencies, 0.50), percentile(latencies, 0.99),
+								percentile(latencies, 0.999), latencies[numKeys - 1],
+								growMax, gcTime);
+					}
+				}
+			}
+		}
+	}
+
+	// Times every remove() while a full table is emptied. Under quadratic
+	// probing, removed entries pile up until the table is rehashed at its
+	// current size to clear them, which lands on one remove unless
+	// rehashing is incremental; linear probing shifts entries back instead
+	// and never rehashes. Run without GC noise as for addLatency.
+	private static void removeLatency(int[] sizes) {
+		System.out.println("remove() latency while emptying (ns):");
+		System.out.printf("%-12s %-10s %-12s %10s %10s %10s %12s %8s%n", "keys",
+				"probing", "rehash", "p50", "p99", "p99.9", "max", "gc ms");
+		HashTableOpenAddressing.Probing quadratic = HashTableOpenAddressing.Probing.QUADRATIC;
+		HashTableOpenAddressing.Probing linear = HashTableOpenAddressing.Probing.LINEAR;
+		HashTableOpenAddressing.Probing[] probings = {quadratic, quadratic, linear};
+		boolean[] incrementals = {false, true, false};
+		for (int numKeys : sizes) {
+			for (int round = 0; round < 2; round++) { // First round is warm-up
+				for (int run = 0; run < probings.length; run++) {
+					HashTableOpenAddressing<Integer, Integer> table =
+							new HashTableOpenAddressing<>(5, LOAD, HashStrategy.murmur3(),
+									probings[run]);
+					table.setIncrementalRehashing(incrementals[run]);
+					for (int i = 0; i < numKeys; i++) {
+						table.add(i, i);
+					}
+					long[] latencies = new long[numKeys];
+					long gcBefore = gcMillis();
+					for (int i = 0; i < numKeys; i++) {
+						long start = System.nanoTime();
+						table.remove(i);
+						latencies[i] = System.nanoTime() - start;
+					}
+					long gcTime = gcMillis() - gcBefore;
+					if (round == 1) {
+						java.util.Arrays.sort(latencies);
+						System.out.printf("%-12d %-10s %-12s %10d %10d %10d %12d %8d%n",
+								numKeys, probings[run].toString().toLowerCase(),
+								incrementals[run] ? "incremental" : "all-at-once",
+								percentile(latencies, 0.50), percentile(latencies, 0.99),
+								percentile(latencies, 0.999), latencies[numKeys - 1], gcTime);
+					}
+				}
+			}
+		}
+	}
+
+	private static long percentile(long[] sorted, double fraction) {
+		return sorted[(int) Math.min(sorted.length - 1, (long) (sorted.length * fraction))];
+	}
+
+	// Fills each kind of table to its target load and times every
+	// getValue() for keys that are present and keys that are absent.
+	private static void lookupLatency(int[] sizes) {
+		System.out.println("getValue() latency at target load (ns):");
+		System.out.printf("%-12s %-24s %8s %10s %10s %10s %10s%n", "keys", "table",
+				"probes", "hit p50", "hit p99.9", "miss p50", "miss p99.9");
+		for (int numKeys : sizes) {
+			for (int round = 0; round < 2; round++) { // First round is warm-up
+				HashTableOpenAddressing<Integer, Integer> quadratic =
+						new HashTableOpenAddressing<>((int) (numKeys / 0.75) + 1, 0.75);
+				RobinHoodHashTable<Integer, Integer> robinHood =
+						new RobinHoodHashTable<>((int) (numKeys / 0.9) + 1, 0.9);
+				for (int i = 0; i < numKeys; i++) {
+					quadratic.add(i, i);
+					robinHood.add(i, i);
+				}
+				// Swiss tables have a power of two number of slots; fill one
+				// of them to exactly 7/8
+				int swissKeys = (int) (Integer.highestOneBit(numKeys) * 0.875);
+				SwissHashTable<Integer, Integer> swiss = new SwissHashTable<>(swissKeys);
+				for (int i = 0; i < swissKeys; i++) {
+					swiss.add(i, i);
+				}
+				long[][] quadraticTimes = timeLookups(quadratic, numKeys);
+				long[][] robinHoodTimes = timeLookups(robinHood, numKeys);
+				long[][] swissTimes = timeLookups(swiss, swissKeys);
+				if (round == 1) {
+					printLookupRow(numKeys, "quadratic @ 0.75",
+							quadratic.getAverageProbeLength(), quadraticTimes);
+					printLookupRow(numKeys, "robin hood @ 0.9",
+							robinHood.getAverageProbeLength(), robinHoodTimes);
+					printLookupRow(swissKeys, "swiss @ 0.875 (groups)",
+							swiss.getAverageProbeLength(), swissTimes);
+				}
+			}
+		}
+	}
+
+	// Times building an ImmutableHashTable from a builder, a sequential
+	// stream and a parallel stream, then compares its lookups with those
+	// of the HashTableOpenAddressing it was frozen from.
+	private static void snapshot(int[] sizes) {
+		System.out.println("ImmutableHashTable build (ms):");
+		System.out.printf("%-12s %10s %12s %12s%n", "keys", "builder", "sequential",
+				"parallel");
+		for (int numKeys : sizes) {
+			long[] millis = new long[3];
+			for (int round = 0; round < 2; round++) { // First round is warm-up
+				long start = System.nanoTime();
+				ImmutableHashTable.Builder<Integer, Integer> builder =
+						ImmutableHashTable.builder();
+				for (int i = 0; i < numKeys; i++) {
+					builder.add(i, i);
+				}
+				builder.build();
+				long built = System.nanoTime();
+				java.util.stream.IntStream.range(0, numKeys).boxed()
+						.collect(ImmutableHashTable.toImmutableHashTable(i -> i, i -> i));
+				long sequential = System.nanoTime();
+				java.util.stream.IntStream.range(0, numKeys).parallel().boxed()
+						.collect(ImmutableHashTable.toImmutableHashTable(i -> i, i -> i));
+				long parallel = System.nanoTime();
+				millis[0] = (built - start) / 1_000_000;
+				millis[1] = (sequential - built) / 1_000_000;
+				millis[2] = (parallel - sequential) / 1_000_000;
+			}
+			System.out.printf("%-12d %10d %12d %12d%n", numKeys, millis[0], millis[1],
+					millis[2]);
+		}
+
+		System.out.println("getValue() latency (ns):");
+		System.out.printf("%-12s %-24s %8s %10s %10s %10s %10s%n", "keys", "table",
+				"probes", "hit p50", "hit p99.9", "miss p50", "miss p99.9");
+		for (int numKeys : sizes) {
+			for (int round = 0; round < 2; round++) { // First round is warm-up
+				HashTableOpenAddressing<Integer, Integer> mutable =
+						new HashTableOpenAddressing<>((int) (numKeys / 0.75) + 1, 0.75);
+				ImmutableHashTable.Builder<Integer, Integer> builder =
+						ImmutableHashTable.builder();
+				for (int i = 0; i < numKeys; i++) {
+					mutable.add(i, i);
+					builder.add(i, i);
+				}
+				ImmutableHashTable<Integer, Integer> frozen = builder.build();
+				long[][] mutableTimes = timeLookups(mutable, numKeys);
+				long[][] frozenTimes = timeLookups(frozen, numKeys);
+				if (round == 1) {
+					printLookupRow(numKeys, "quadratic @ 0.75",
+							mutable.getAverageProbeLength(), mutableTimes);
+					printLookupRow(numKeys, "immutable @ 0.75",
+							frozen.getAverageProbeLength(), frozenTimes);
+				}
+			}
+		}
+	}
+
+	// Times freeze() into a PerfectHashTable and compares its lookups with
+	// those of the HashTableOpenAddressing it was compiled from.
+	private static void perfect(int[] sizes) {
+		System.out.println("Minimal perfect hash (freeze) vs quadratic @ 0.75:");
+		System.out.printf("%-12s %-24s %8s %10s %10s %10s %10s%n", "keys", "table",
+				"probes", "hit p50", "hit p99.9", "miss p50", "miss p99.9");
+		for (int numKeys : sizes) {
+			HashTableOpenAddressing<Integer, Integer> table =
+					new HashTableOpenAddressing<>((int) (numKeys / 0.75) + 1, 0.75);
+			for (int i = 0; i < numKeys; i++) {
+				table.add(i, i);
+			}
+			long buildMillis = 0;
+			for (int round = 0; round < 2; round++) { // First round is warm-up
+				long start = System.nanoTime();
+				PerfectHashTable<Integer, Integer> frozen = table.freeze();
+				buildMillis = (System.nanoTime() - start) / 1_000_000;
+				long[][] tableTimes = timeLookups(table, numKeys);
+				long[][] frozenTimes = timeLookups(frozen, numKeys);
+				if (round == 1) {
+					printLookupRow(numKeys, "quadratic @ 0.75",
+							table.getAverageProbeLength(), tableTimes);
+					printLookupRow(numKeys, "perfect @ 1.0", 1.0, frozenTimes);
+				}
+			}
+			System.out.println("freeze() took " + buildMillis + " ms");
+		}
+	}
+
+	// Compares the tail of getValue() latency, where cuckoo hashing bounds
+	// the slots a lookup may examine and quadratic probing does not.
+	private static void cuckoo(int[] sizes) {
+		System.out.println("getValue() tail latency (ns):");
+		System.out.printf("%-12s %-18s %8s %8s %10s %8s %8s %10s %8s%n", "keys", "table",
+				"probes", "hit p50", "hit p99.99", "hit max", "miss p50", "miss p99.99",
+				"miss max");
+		for (int numKeys : sizes) {
+			for (int round = 0; round < 2; round++) { // First round is warm-up
+				HashTableOpenAddressing<Integer, Integer> quadratic =
+						new HashTableOpenAddressing<>((int) (numKeys / 0.75) + 1, 0.75);
+				CuckooHashTable<Integer, Integer> cuckoo =
+						new CuckooHashTable<>(numKeys, 0.9);
+				for (int i = 0; i < numKeys; i++) {
+					quadratic.add(i, i);
+					cuckoo.add(i, i);
+				}
+				long[][] quadraticTimes = timeLookups(quadratic, numKeys);
+				long[][] cuckooTimes = timeLookups(cuckoo, numKeys);
+				if (round == 1) {
+					printTailRow(numKeys, "quadratic @ 0.75",
+							quadratic.getAverageProbeLength(), quadraticTimes);
+					printTailRow(numKeys, "cuckoo 2x4 @ 0.9",
+							cuckoo.getAverageProbeLength(), cuckooTimes);
+				}
+			}
+		}
+	}
+
+	private static void printTailRow(int numKeys, String name, double probes,
+			long[][] times) {
+		System.out.printf("%-12d %-18s %8.2f %8d %10d %8d %8d %10d %8d%n", numKeys, name,
+				probes, percentile(times[0], 0.50), percentile(times[0], 0.9999),
+				times[0][times[0].length - 1], percentile(times[1], 0.50),
+				percentile(times[1], 0.9999), times[1][times[1].length - 1]);
+	}
+
+	// Adds keys that all have the same hashCode, which no table size can
+	// separate, and checks every lookup, the iterators and removal. A table
+	// that cannot place them must set them aside, not grow until memory
+	// runs out. Throws IllegalStateException at the first wrong answer.
+	private static void collisions(int[] sizes) {
+		System.out.println("Equal-hash keys (ms to add, check and remove all):");
+		System.out.printf("%-12s %-12s %10s%n", "keys", "table", "ms");
+		for (int numKeys : sizes) {
+			String[] keys = collidingKeys(numKeys);
+			checkCollisions(new CuckooHashTable<>(), "cuckoo", keys);
+			checkCollisions(new HopscotchHashTable<>(), "hopscotch", keys);
+		}
+	}
+
+	// Returns count distinct strings built from the blocks "Aa" and "BB",
+	// which have equal hashCodes, so the strings all do too.
+	private static String[] collidingKeys(int count) {
+		int blocks = Math.max(1, 32 - Integer.numberOfLeadingZeros(count - 1));
+		String[] keys = new String[count];
+		for (int i = 0; i < count; i++) {
+			StringBuilder key = new StringBuilder();
+			for (int b = 0; b < blocks; b++) {
+				key.append(((i >>> b) & 1) == 0 ? "Aa" : "BB");
+			}
+			keys[i] = key.toString();
+		}
+		return keys;
+	}
+
+	private static void checkCollisions(DictionaryInterface<String, Integer> table,
+			String name, String[] keys) {
+		long start = System.nanoTime();
+		for (int i = 0; i < keys.length; i++) {
+			check(table.add(keys[i], i) == null, name + ": add found a new key");
+		}
+		check(table.getSize() == keys.length, name + ": wrong size after adds");
+		for (int i = 0; i < keys.length; i++) {
+			check(Integer.valueOf(i).equals(table.getValue(keys[i])), name + ": lost " + keys[i]);
+		}
+		java.util.Set<String> seen = new java.util.HashSet<>();
+		java.util.Iterator<String> keyIterator = table.getKeyIterator();
+		while (keyIterator.hasNext()) {
+			check(seen.add(keyIterator.next()), name + ": iterator repeated a key");
+		}
+		check(seen.size() == keys.length, name + ": iterator missed keys");
+		for (int i = 0; i < keys.length; i += 2) {
+			check(Integer.valueOf(i).equals(table.remove(keys[i])), name + ": remove failed");
+		}
+		for (int i = 0; i < keys.length; i++) {
+			check((table.getValue(keys[i]) == null) == (i % 2 == 0),
+					name + ": wrong entries after removes");
+		}
+		check(table.getSize() == keys.length / 2, name + ": wrong size after removes");
+		long nanos = System.nanoTime() - start;
+		System.out.printf("%-12d %-12s %10.2f%n", keys.length, name, nanos / 1e6);
+	}
+
+	private static void check(boolean condition, String message) {
+		if (!condition) {
+			throw new IllegalStateException(message);
+		}
+	}
+
+	// Fills tables sized for each load from 0.5 to 0.95 and reports the
+	// average probe length, add throughput and getValue throughput of
+	// quadratic probing and of hopscotch hashing.
+	private static void hopscotch(int[] sizes) {
+		System.out.println("Load-factor sweep (probes, Mops/s):");
+		System.out.printf("%-12s %6s %-12s %8s %8s %10s%n", "keys", "load", "table",
+				"probes", "add", "getValue");
+		double[] loads = {0.5, 0.6, 0.7, 0.8, 0.85, 0.9, 0.95};
+		for (int numKeys : sizes) {
+			for (int round = 0; round < 2; round++) { // First round is warm-up
+				for (double load : loads) {
+					HashTableOpenAddressing<Integer, Integer> quadratic =
+							new HashTableOpenAddressing<>((int) (numKeys / load) + 1, load);
+					HopscotchHashTable<Integer, Integer> hopscotch =
+							new HopscotchHashTable<>(numKeys, load);
+					double[] quadraticRates = fillAndLookUp(quadratic, numKeys);
+					double[] hopscotchRates = fillAndLookUp(hopscotch, numKeys);
+					if (round == 1) {
+						System.out.printf("%-12d %6.2f %-12s %8.2f %8.2f %10.2f%n", numKeys,
+								load, "quadratic", quadratic.getAverageProbeLength(),
+								quadraticRates[0], quadraticRates[1]);
+						// A failed displacement grows the table, so report the
+						// load actually reached
+						System.out.printf("%-12d %6.2f %-12s %8.2f %8.2f %10.2f%n", numKeys,
+								(double) numKeys / hopscotch.getCapacity(), "hopscotch",
+								hopscotch.getAverageProbeLength(), hopscotchRates[0],
+								hopscotchRates[1]);
+					}
+				}
+			}
+		}
+	}
+
+	// Adds keys 0 to numKeys - 1, then looks each up in a scattered order;
+	// returns millions of adds and of lookups per second.
+	private static double[] fillAndLookUp(DictionaryInterface<Integer, Integer> table,
+			int numKeys) {
+		long start = System.nanoTime();
+		for (int i = 0; i < numKeys; i++) {
+			table.add(i, i);
+		}
+		long filled = System.nanoTime();
+		long checksum = 0;
+		for (int i = 0; i < numKeys; i++) {
+			checksum += table.getValue((int) ((i * 0x9E3779B1L) % numKeys));
+		}
+		long end = System.nanoTime();
+		if (checksum == 42) {
+			System.out.print(""); // Keeps the lookups from being optimized away
+		}
+		return new double[] {numKeys * 1e3 / (filled - start), numKeys * 1e3 / (end - filled)};
+	}
+
+	// Returns sorted per-call times for hits in [0] and misses in [1],
+	// visiting keys in a scattered order so each call misses the cache.
+	private static long[][] timeLookups(DictionaryInterface<Integer, Integer> table,
+			int numKeys) {
+		long[][] times = new long[2][numKeys];
+		int checksum = 0;
+		for (int i = 0; i < numKeys; i++) {
+			int key = (int) ((i * 0x9E3779B1L) % numKeys);
+			long start = System.nanoTime();
+			checksum += table.getValue(key);
+			long middle = System.nanoTime();
+			checksum += (table.getValue(numKeys + key) == null) ? 0 : 1;
+			long end = System.nanoTime();
+			times[0][i] = middle - start;
+			times[1][i] = end - middle;
+		}
+		if (checksum == 42) {
+			System.out.print(""); // Keeps the lookups from being optimized away
+		}
+		java.util.Arrays.sort(times[0]);
+		java.util.Arrays.sort(times[1]);
+		return times;
+	}
+
+	private static void printLookupRow(int numKeys, String name, double probes,
+			long[][] times) {
+		System.out.printf("%-12d %-24s %8.2f %10d %10d %10d %10d%n", numKeys, name,
+				probes, percentile(times[0], 0.50), percentile(times[0], 0.999),
+				percentile(times[1], 0.50), percentile(times[1], 0.999));
+	}
+
+	// Reports the heap a table itself costs per entry: keys and values are
+	// allocated before the table, so only its own arrays and objects count.
+	private static void footprint(int[] sizes) {
+		System.out.println("Table overhead, excluding keys and values:");
+		System.out.printf("%-12s %14s %14s%n", "keys", "table (MB)", "bytes/entry");
+		for (int numKeys : sizes) {
+			Integer[] keys = new Integer[numKeys];
+			for (int i = 0; i < numKeys; i++) {
+				keys[i] = Integer.valueOf(1_000_000 + i); // Outside the Integer cache
+			}
+			long before = usedHeap();
+			HashTableOpenAddressing<Integer, Integer> table =
+					new HashTableOpenAddressing<>((int) (numKeys / 0.75) + 1, 0.75);
+			for (int i = 0; i < numKeys; i++) {
+				table.add(keys[i], keys[i]);
+			}
+			long retained = usedHeap() - before;
+			System.out.printf("%-12d %14.1f %14.1f%n", table.getSize(),
+					retained / (1024.0 * 1024.0), (double) retained / numKeys);
+		}
+	}
+
+	// Reports the time to load numKeys random keys into a new table of the
+	// default capacity: by add one at a time, growing as it goes; by add
+	// into a table sized for them up front; and by addAll with and without
+	// prefetching home slots. Each figure is the median of five loads.
+	private static void batch(int[] sizes) {
+		System.out.println("Loading a batch into a new table (ms):");
+		System.out.printf("%-12s %-10s %12s %12s %12s %12s%n", "keys", "probing",
+				"add", "add sized", "addAll", "prefetch");
+		for (int numKeys : sizes) {
+			Integer[] keys = new Integer[numKeys];
+			java.util.Random random = new java.util.Random(42);
+			for (int i = 0; i < numKeys; i++) {
+				keys[i] = random.nextInt();
+			}
+			for (HashTableOpenAddressing.Probing probing : HashTableOpenAddressing.Probing.values()) {
+				double[][] times = new double[4][5];
+				for (int round = 0; round < 7; round++) { // First two are warm-up
+					for (int method = 0; method < 4; method++) {
+						HashTableOpenAddressing<Integer, Integer> table =
+								new HashTableOpenAddressing<>((method == 1) ? (int) (numKeys / LOAD) + 1 : 5,
+										LOAD, HashStrategy.murmur3(), probing);
+						long start = System.nanoTime();
+						if (method < 2) {
+							for (int i = 0; i < numKeys; i++) {
+								table.add(keys[i], keys[i]);
+							}
+						}
+						else {
+							table.addAll(keys, keys, method == 3);
+						}
+						if (round >= 2) {
+							times[method][round - 2] = (System.nanoTime() - start) / 1e6;
+						}
+					}
+				}
+				for (double[] methodTimes : times) {
+					java.util.Arrays.sort(methodTimes);
+				}
+				System.out.printf("%-12d %-10s %12.1f %12.1f %12.1f %12.1f%n", numKeys, probing,
+						times[0][2], times[1][2], times[2][2], times[3][2]);
+			}
+		}
+	}
+
+	// Reports millions of lookups per second of present keys, resolved in
+	// batches of 64 and 256 keys by a getValue loop and by getAll. The
+	// queried keys are new Integer objects, as keys parsed from a request
+	// would be. At 20M keys the table, its keys and its values together
+	// take several hundred MB, more than the last-level cache.
+	private static void multiGet(int[] sizes) {
+		System.out.println("Batched lookups (M lookups/s):");
+		System.out.printf("%-12s %8s %12s %12s%n", "keys", "batch", "getValue", "getAll");
+		for (int numKeys : sizes) {
+			Integer[] keys = new Integer[numKeys];
+			for (int i = 0; i < numKeys; i++) {
+				keys[i] = i * 7 + 1_000_000; // Outside the Integer cache
+			}
+			HashTableOpenAddressing<Integer, Integer> table = new HashTableOpenAddressing<>();
+			table.addAll(keys, keys);
+			keys = null;
+			int numQueries = 4_000_000;
+			Integer[] queries = new Integer[numQueries];
+			java.util.Random random = new java.util.Random(42);
+			for (int i = 0; i < numQueries; i++) {
+				queries[i] = Integer.valueOf(random.nextInt(numKeys) * 7 + 1_000_000);
+			}
+			for (int batchSize : new int[] {64, 256}) {
+				Integer[] batch = new Integer[batchSize];
+				Integer[] out = new Integer[batchSize];
+				double loopRate = 0;
+				double getAllRate = 0;
+				for (int round = 0; round < 3; round++) { // First two are warm-up
+					long checksum = 0;
+					long start = System.nanoTime();
+					for (int first = 0; first + batchSize <= numQueries; first += batchSize) {
+						for (int i = 0; i < batchSize; i++) {
+							out[i] = table.getValue(queries[first + i]);
+						}
+						checksum += out[batchSize - 1];
+					}
+					long looped = System.nanoTime();
+					for (int first = 0; first + batchSize <= numQueries; first += batchSize) {
+						System.arraycopy(queries, first, batch, 0, batchSize);
+						checksum += table.getAll(batch, out);
+					}
+					long end = System.nanoTime();
+					loopRate = numQueries * 1e3 / (looped - start);
+					getAllRate = numQueries * 1e3 / (end - looped);
+					if (checksum == 42) {
+						System.out.print(""); // Keeps the lookups from being optimized away
+					}
+				}
+				System.out.printf("%-12d %8d %12.2f %12.2f%n", numKeys, batchSize,
+						loopRate, getAllRate);
+			}
+		}
+	}
+
+	// Loads numKeys composite keys into a table of the default capacity,
+	// then looks up each key, through an equal but distinct object, and
+	// as many absent keys. Reports the time of the load and of its slowest
+	// add, which is the last full rehash, and how often the keys' hashCode
+	// and equals methods ran.
+	private static void hashCache(int[] sizes) {
+		System.out.println("Hash and equals calls with composite keys:");
+		System.out.printf("%-12s %-10s %10s %12s %14s %12s %12s%n", "keys", "probing",
+				"load ms", "rehash ms", "hashCode/add", "equals/hit", "equals/miss");
+		for (int numKeys : sizes) {
+			CountingKey[] keys = new CountingKey[numKeys];
+			CountingKey[] copies = new CountingKey[numKeys];
+			CountingKey[] absent = new CountingKey[numKeys];
+			for (int i = 0; i < numKeys; i++) {
+				keys[i] = new CountingKey("customer-" + i, i % 97);
+				copies[i] = new CountingKey("customer-" + i, i % 97);
+				absent[i] = new CountingKey("customer-" + i, 100);
+			}
+			for (HashTableOpenAddressing.Probing probing : HashTableOpenAddressing.Probing.values()) {
+				for (int round = 0; round < 2; round++) { // First round is warm-up
+					HashTableOpenAddressing<CountingKey, Integer> table =
+							new HashTableOpenAddressing<>(5, LOAD, HashStrategy.murmur3(), probing);
+					CountingKey.reset();
+					long slowestAdd = 0;
+					long start = System.nanoTime();
+					for (int i = 0; i < numKeys; i++) {
+						long before = System.nanoTime();
+						table.add(keys[i], i);
+						slowestAdd = Math.max(slowestAdd, System.nanoTime() - before);
+					}
+					long loadNanos = System.nanoTime() - start;
+					long hashCodes = CountingKey.hashCodeCalls;
+					CountingKey.reset();
+					long checksum = 0;
+					for (int i = 0; i < numKeys; i++) {
+						checksum += table.getValue(copies[i]);
+					}
+					long hitEquals = CountingKey.equalsCalls;
+					CountingKey.reset();
+					for (int i = 0; i < numKeys; i++) {
+						checksum += (table.getValue(absent[i]) == null) ? 0 : 1;
+					}
+					long missEquals = CountingKey.equalsCalls;
+					if (checksum == 42) {
+						System.out.print(""); // Keeps the lookups from being optimized away
+					}
+					if (round == 1) {
+						System.out.printf("%-12d %-10s %10.1f %12.1f %14.2f %12.2f %12.2f%n",
+								numKeys, probing, loadNanos / 1e6, slowestAdd / 1e6,
+								(double) hashCodes / numKeys, (double) hitEquals / numKeys,
+								(double) missEquals / numKeys);
+					}
+				}
+			}
+		}
+	}
+
+	// A key made of a string and a number, like a composite database key,
+	// that counts calls to hashCode and equals.
+	private static final class CountingKey {
+		private static long hashCodeCalls;
+		private static long equalsCalls;
+		private final String name;
+		private final int part;
+
+		private CountingKey(String nameIn, int partIn) {
+			name = nameIn;
+			part = partIn;
+		}
+
+		private static void reset() {
+			hashCodeCalls = 0;
+			equalsCalls = 0;
+		}
+
+		@Override
+		public int hashCode() {
+			hashCodeCalls++;
+			return 31 * name.hashCode() + part;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			equalsCalls++;
+			if (!(other instanceof CountingKey)) {
+				return false;
+			}
+			CountingKey that = (CountingKey) other;
+			return (part == that.part) && name.equals(that.name);
+		}
+	}
+
+	// Reports millions of operations per second for adds into a growing
+	// table, lookups of present keys and lookups of absent keys.
+	private static void throughput(int[] sizes) {
+		System.out.println("Throughput (Mops/s):");
+		System.out.printf("%-12s %10s %10s %10s%n", "keys", "add", "hit", "miss");
+		for (int numKeys : sizes) {
+			for (int round = 0; round < 3; round++) { // First rounds are warm-up
+				long start = System.nanoTime();
+				HashTableOpenAddressing<Integer, Integer> table =
+						new HashTableOpenAddressing<>();
+				for (int i = 0; i < numKeys; i++) {
+					table.add(i, i);
+				}
+				long added = System.nanoTime();
+				long checksum = 0;
+				for (int i = 0; i < numKeys; i++) {
+					checksum += table.getValue((int) ((i * 0x9E3779B1L) % numKeys));
+				}
+				long found = System.nanoTime();
+				for (int i = 0; i < numKeys; i++) {
+					checksum += (table.getValue(numKeys + i) == null) ? 0 : 1;
+				}
+				long end = System.nanoTime();
+				if (round == 2) {
+					System.out.printf("%-12d %10.2f %10.2f %10.2f%n", numKeys,
+							numKeys * 1e3 / (added - start), numKeys * 1e3 / (found - added),
+							numKeys * 1e3 / (end - found));
+				}
+				if (checksum == 42) {
+					System.out.print(""); // Keeps the lookups from being optimized away
+				}
+			}
+		}
+	}
+
+	// Compares a boxed HashTableOpenAddressing<Integer, Integer> with
+	// IntIntHashTable: time and bytes allocated per add and per lookup.
+	private static void primitive(int[] sizes) {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)
+				java.lang.management.ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+		System.out.println("Boxed vs primitive int keys:");
+		System.out.printf("%-12s %-10s %12s %14s %12s %14s%n", "keys", "table",
+				"add Mops/s", "add B/op", "get Mops/s", "get B/op");
+		for (int numKeys : sizes) {
+			for (int round = 0; round < 3; round++) { // First rounds are warm-up
+				long checksum = 0;
+				long allocated = threads.getThreadAllocatedBytes(thread);
+				long start = System.nanoTime();
+				HashTableOpenAddressing<Integer, Integer> boxed =
+						new HashTableOpenAddressing<>();
+				for (int i = 0; i < numKeys; i++) {
+					boxed.add(1_000_000 + i, i);
+				}
+				long added = System.nanoTime();
+				long addedBytes = threads.getThreadAllocatedBytes(thread);
+				for (int i = 0; i < numKeys; i++) {
+					checksum += boxed.getValue(1_000_000 + (int) ((i * 0x9E3779B1L) % numKeys));
+				}
+				long end = System.nanoTime();
+				long endBytes = threads.getThreadAllocatedBytes(thread);
+				if (round == 2) {
+					printPrimitiveRow(numKeys, "boxed", added - start, addedBytes - allocated,
+							end - added, endBytes - addedBytes);
+				}
+
+				allocated = threads.getThreadAllocatedBytes(thread);
+				start = System.nanoTime();
+				IntIntHashTable primitive = new IntIntHashTable();
+				for (int i = 0; i < numKeys; i++) {
+					primitive.add(1_000_000 + i, i);
+				}
+				added = System.nanoTime();
+				addedBytes = threads.getThreadAllocatedBytes(thread);
+				for (int i = 0; i < numKeys; i++) {
+					checksum += primitive.getValue(1_000_000 + (int) ((i * 0x9E3779B1L) % numKeys));
+				}
+				end = System.nanoTime();
+				endBytes = threads.getThreadAllocatedBytes(thread);
+				if (round == 2) {
+					printPrimitiveRow(numKeys, "primitive", added - start, addedBytes - allocated,
+							end - added, endBytes - addedBytes);
+				}
+				if (checksum == 42) {
+					System.out.print(""); // Keeps the lookups from being optimized away
+				}
+			}
+		}
+	}
+
+	private static void printPrimitiveRow(int numKeys, String name, long addNanos,
+			long addBytes, long getNanos, long getBytes) {
+		System.out.printf("%-12d %-10s %12.2f %14.1f %12.2f %14.1f%n", numKeys, name,
+				numKeys * 1e3 / addNanos, (double) addBytes / numKeys,
+				numKeys * 1e3 / getNanos, (double) getBytes / numKeys);
+	}
+
+	// Builds an on-heap HashTableOpenAddressing<Long, Long> and an
+	// OffHeapLongHashTable of the same size and reports the GC time spent
+	// while building, the time of a full collection with the table live,
+	// and the memory each one holds.
+	private static void offHeap(int[] sizes) {
+		System.out.println("On-heap vs off-heap long keys:");
+		System.out.printf("%-12s %-10s %12s %14s %12s %12s%n", "keys", "table",
+				"build GC ms", "full GC ms", "heap MB", "off-heap MB");
+		for (int numKeys : sizes) {
+			long heapBefore = usedHeap();
+			long gcBefore = gcMillis();
+			HashTableOpenAddressing<Long, Long> onHeap = new HashTableOpenAddressing<>();
+			for (int i = 0; i < numKeys; i++) {
+				onHeap.add((long) i, (long) i);
+			}
+			long buildGc = gcMillis() - gcBefore;
+			long start = System.nanoTime();
+			System.gc();
+			long fullGc = System.nanoTime() - start;
+			long heap = usedHeap() - heapBefore;
+			System.out.printf("%-12d %-10s %12d %14.1f %12.1f %12.1f%n", onHeap.getSize(),
+					"on-heap", buildGc, fullGc / 1e6, heap / (1024.0 * 1024.0), 0.0);
+			onHeap = null;
+
+			heapBefore = usedHeap();
+			gcBefore = gcMillis();
+			try (OffHeapLongHashTable offHeap = new OffHeapLongHashTable()) {
+				for (int i = 0; i < numKeys; i++) {
+					offHeap.add(i, i);
+				}
+				buildGc = gcMillis() - gcBefore;
+				start = System.nanoTime();
+				System.gc();
+				fullGc = System.nanoTime() - start;
+				heap = usedHeap() - heapBefore;
+				System.out.printf("%-12d %-10s %12d %14.1f %12.1f %12.1f%n", offHeap.getSize(),
+						"off-heap", buildGc, fullGc / 1e6, heap / (1024.0 * 1024.0),
+						offHeap.getOffHeapBytes() / (1024.0 * 1024.0));
+			}
+		}
+	}
+
+	// Runs a mix of 90% getValue, 5% add and 5% remove from 1 to 64
+	// threads against one HashTableOpenAddressing behind a global lock and
+	// against a StripedHashTable.
+	private static void concurrent(int[] sizes) {
+		System.out.println("Mixed 90/5/5 workload (Mops/s):");
+		System.out.printf("%-12s %8s %14s %14s%n", "keys", "threads", "global lock",
+				"striped");
+		for (int numKeys : sizes) {
+			// Warm-up
+			runConcurrent(new SynchronizedDictionary<>(
+					new HashTableOpenAddressing<Integer, Integer>()), 1, numKeys, 90);
+			runConcurrent(new StripedHashTable<Integer, Integer>(), 1, numKeys, 90);
+			for (int threads = 1; threads <= 64; threads *= 2) {
+				double global = runConcurrent(new SynchronizedDictionary<>(
+						new HashTableOpenAddressing<Integer, Integer>()), threads, numKeys, 90);
+				double striped = runConcurrent(new StripedHashTable<Integer, Integer>(),
+						threads, numKeys, 90);
+				System.out.printf("%-12d %8d %14.2f %14.2f%n", numKeys, threads, global, striped);
+			}
+		}
+	}
+
+	// Compares how reads scale from 1 to 64 threads on a StripedHashTable,
+	// whose readers take a segment lock, and on a LockFreeHashTable, whose
+	// readers never write shared memory, with only reads and with 10%
+	// updates.
+	private static void lockFree(int[] sizes) {
+		System.out.println("Read scaling (Mops/s):");
+		System.out.printf("%-12s %8s %12s %12s %12s %12s%n", "keys", "threads",
+				"striped 100", "lockfree 100", "striped 90", "lockfree 90");
+		for (int numKeys : sizes) {
+			// Warm-up
+			runConcurrent(new StripedHashTable<Integer, Integer>(), 1, numKeys, 90);
+			runConcurrent(new LockFreeHashTable<Integer, Integer>(), 1, numKeys, 90);
+			for (int threads = 1; threads <= 64; threads *= 2) {
+				double striped = runConcurrent(new StripedHashTable<Integer, Integer>(),
+						threads, numKeys, 100);
+				double lockFree = runConcurrent(new LockFreeHashTable<Integer, Integer>(),
+						threads, numKeys, 100);
+				double stripedMixed = runConcurrent(new StripedHashTable<Integer, Integer>(),
+						threads, numKeys, 90);
+				double lockFreeMixed = runConcurrent(new LockFreeHashTable<Integer, Integer>(),
+						threads, numKeys, 90);
+				System.out.printf("%-12d %8d %12.2f %12.2f %12.2f %12.2f%n", numKeys,
+						threads, striped, lockFree, stripedMixed, lockFreeMixed);
+			}
+		}
+	}
+
+	// Runs 99% getValue and 1% updates from 1 to 64 threads against one
+	// HashTableOpenAddressing shared through synchronized methods, through
+	// a ReentrantReadWriteLock, and through a StampedHashTable.
+	private static void stamped(int[] sizes) {
+		System.out.println("Read-mostly 99/1 workload (Mops/s):");
+		System.out.printf("%-12s %8s %14s %14s %14s%n", "keys", "threads",
+				"synchronized", "read-write", "stamped");
+		for (int numKeys : sizes) {
+			// Warm-up
+			runConcurrent(new SynchronizedDictionary<>(
+					new HashTableOpenAddressing<Integer, Integer>()), 1, numKeys, 99);
+			runConcurrent(new ReadWriteLockDictionary<>(
+					new HashTableOpenAddressing<Integer, Integer>()), 1, numKeys, 99);
+			runConcurrent(new StampedHashTable<Integer, Integer>(), 1, numKeys, 99);
+			for (int threads = 1; threads <= 64; threads *= 2) {
+				double synchronizedOps = runConcurrent(new SynchronizedDictionary<>(
+						new HashTableOpenAddressing<Integer, Integer>()), threads, numKeys, 99);
+				double readWrite = runConcurrent(new ReadWriteLockDictionary<>(
+						new HashTableOpenAddressing<Integer, Integer>()), threads, numKeys, 99);
+				double stamped = runConcurrent(new StampedHashTable<Integer, Integer>(),
+						threads, numKeys, 99);
+				System.out.printf("%-12d %8d %14.2f %14.2f %14.2f%n", numKeys, threads,
+						synchronizedOps, readWrite, stamped);
+			}
+		}
+	}
+
+	// Fills the table with numKeys keys, then lets each thread run random
+	// operations for a fixed time; readPercent of them are getValue and
+	// the rest alternate between remove and add of a random key. Returns
+	// millions of operations per second over all threads.
+	private static double runConcurrent(DictionaryInterface<Integer, Integer> table,
+			int threads, int numKeys, int readPercent) {
+		for (int i = 0; i < numKeys; i++) {
+			table.add(i, i);
+		}
+		long millis = 500;
+		java.util.concurrent.atomic.LongAdder operations =
+				new java.util.concurrent.atomic.LongAdder();
+		java.util.concurrent.CountDownLatch ready =
+				new java.util.concurrent.CountDownLatch(1);
+		long[] deadline = new long[1];
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			workers[t] = new Thread(() -> {
+				java.util.concurrent.ThreadLocalRandom random =
+						java.util.concurrent.ThreadLocalRandom.current();
+				long count = 0;
+				try {
+					ready.await();
+				}
+				catch (InterruptedException e) {
+					return;
+				}
+				while ((count & 0xFF) != 0 || System.nanoTime() < deadline[0]) {
+					Integer key = random.nextInt(numKeys);
+					int choice = random.nextInt(100);
+					if (choice < readPercent) {
+						table.getValue(key);
+					}
+					else if ((choice & 1) == 0) {
+						table.remove(key);
+					}
+					else {
+						table.add(key, key);
+					}
+					count++;
+				}
+				operations.add(count);
+			});
+			workers[t].start();
+		}
+		long start = System.nanoTime();
+		deadline[0] = start + millis * 1_000_000;
+		ready.countDown();
+		for (Thread worker : workers) {
+			try {
+				worker.join();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return operations.sum() * 1e3 / (System.nanoTime() - start);
+	}
+
+	// A dictionary that serializes every operation on one lock, which is
+	// how a plain HashTableOpenAddressing has to be shared between threads.
+	private static class SynchronizedDictionary<K, V> implements DictionaryInterface<K, V> {
+		private final DictionaryInterface<K, V> dictionary;
+
+		private SynchronizedDictionary(DictionaryInterface<K, V> dictionaryIn) {
+			dictionary = dictionaryIn;
+		}
+
+		public synchronized V add(K key, V value) {
+			return dictionary.add(key, value);
+		}
+
+		public synchronized V remove(K key) {
+			return dictionary.remove(key);
+		}
+
+		public synchronized V getValue(K key) {
+			return dictionary.getValue(key);
+		}
+
+		public synchronized boolean contains(K key) {
+			return dictionary.contains(key);
+		}
+
+		public synchronized java.util.Iterator<K> getKeyIterator() {
+			return dictionary.getKeyIterator();
+		}
+
+		public synchronized java.util.Iterator<V> getValueIterator() {
+			return dictionary.getValueIterator();
+		}
+
+		public synchronized boolean isEmpty() {
+			return dictionary.isEmpty();
+		}
+
+		public synchronized boolean isFull() {
+			return dictionary.isFull();
+		}
+
+		public synchronized int getSize() {
+			return dictionary.getSize();
+		}
+
+		public synchronized void clear() {
+			dictionary.clear();
+		}
+	}
+
+	// A dictionary whose readers share a ReentrantReadWriteLock and whose
+	// writers hold it exclusively.
+	private static class ReadWriteLockDictionary<K, V> implements DictionaryInterface<K, V> {
+		private final DictionaryInterface<K, V> dictionary;
+		private final java.util.concurrent.locks.ReentrantReadWriteLock lock =
+				new java.util.concurrent.locks.ReentrantReadWriteLock();
+
+		private ReadWriteLockDictionary(DictionaryInterface<K, V> dictionaryIn) {
+			dictionary = dictionaryIn;
+		}
+
+		public V add(K key, V value) {
+			lock.writeLock().lock();
+			try {
+				return dictionary.add(key, value);
+			}
+			finally {
+				lock.writeLock().unlock();
+			}
+		}
+
+		public V remove(K key) {
+			lock.writeLock().lock();
+			try {
+				return dictionary.remove(key);
+			}
+			finally {
+				lock.writeLock().unlock();
+			}
+		}
+
+		public V getValue(K key) {
+			lock.readLock().lock();
+			try {
+				return dictionary.getValue(key);
+			}
+			finally {
+				lock.readLock().unlock();
+			}
+		}
+
+		public boolean contains(K key) {
+			return getValue(key) != null;
+		}
+
+		public java.util.Iterator<K> getKeyIterator() {
+			return dictionary.getKeyIterator();
+		}
+
+		public java.util.Iterator<V> getValueIterator() {
+			return dictionary.getValueIterator();
+		}
+
+		public boolean isEmpty() {
+			return getSize() == 0;
+		}
+
+		public boolean isFull() {
+			return false;
+		}
+
+		public int getSize() {
+			lock.readLock().lock();
+			try {
+				return dictionary.getSize();
+			}
+			finally {
+				lock.readLock().unlock();
+			}
+		}
+
+		public void clear() {
+			lock.writeLock().lock();
+			try {
+				dictionary.clear();
+			}
+			finally {
+				lock.writeLock().unlock();
+			}
+		}
+	}
+}
@@ -4,36 +4,73 @@ import java.util.NoSuchElementException;
 public class HashTableOpenAddressing<K, V> implements DictionaryInterface<K, V> {
 	private int numEntries;
 	private static final int DEFAULT_CAPACITY = 5;
-	private static final int MAX_CAPACITY = 10000;
-	private TableEntry<K, V>[] table;
+	// Largest prime no greater than the VM's practical array size limit
+	private static final int MAX_CAPACITY = 2147483629;
+	private int maxCapacity;           // Ceiling on table.length
+	private Slots<K, V> table;
+	// Possible states of a slot, kept one byte per slot in Slots.states
+	private static final byte EMPTY = 0;
+	private static final byte CURRENT = 1;
+	private static final byte REMOVED = 2;
+	// Incremental rehashing: after an enlargement, slots of oldTable below
+	// rehashIndex have been moved into table; the rest are moved a few at a
+	// time by each add or remove. oldTable is null when no move is pending.
+	private Slots<K, V> oldTable;
+	private int rehashIndex;
+	private boolean incrementalRehash;
+	private static final int REHASH_STEP = 16; // Old slots moved per write
 	private double loadFactor;
 	private static final double DEFAULT_LOAD_FACTOR = 0.75;
+	private HashStrategy<? super K> hashStrategy; // Spreads key.hashCode()
+	public enum Probing {LINEAR, QUADRATIC} // Possible probe sequences
+	private Probing probing;
+	// Quadratic probing leaves removed entries behind; once they fill this
+	// fraction of the table, it is rehashed at its current size to clear
+	// them out, at once or, in incremental mode, step by step
+	private static final double MAX_REMOVED_RATIO = 0.25;
+	private int numRemoved;            // Removed entries still in table
+	private static final int BATCH_BLOCK = 32; // Keys hashed ahead by addAll, getAll
 
 	public HashTableOpenAddressing() {
 		this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
 	}
 
 	public HashTableOpenAddressing(int initialCapacity, double loadFactorIn) {
+		this(initialCapacity, loadFactorIn, HashStrategy.murmur3());
+	}
+
+	public HashTableOpenAddressing(int initialCapacity, double loadFactorIn,
+			HashStrategy<? super K> hashStrategyIn) {
+		this(initialCapacity, loadFactorIn, hashStrategyIn, Probing.QUADRATIC);
+	}
+
+	public HashTableOpenAddressing(int initialCapacity, double loadFactorIn,
+			HashStrategy<? super K> hashStrategyIn, Probing probingIn) {
 		numEntries = 0;
 		if (loadFactorIn <= 0 || initialCapacity <= 0) {
 			throw new IllegalArgumentException("Initial capacity and load " +
 					"factor must be greater than 0");
 		}
+		else if ((hashStrategyIn == null) || (probingIn == null)) {
+			throw new IllegalArgumentException("Hash strategy and probing " +
+					"must not be null");
+		}
 		else if (initialCapacity > MAX_CAPACITY)
 			throw new IllegalStateException("Attempt to create a dictionary " +
 					"whose capacity is larger than " + MAX_CAPACITY);
 
 		loadFactor = loadFactorIn;
+		hashStrategy = hashStrategyIn;
+		probing = probingIn;
+		maxCapacity = MAX_CAPACITY;
 		// Set up hash table:
 		// Initial size of hash table is same as initialCapacity if it is prime;
 		// otherwise increase it until it is prime size
 		int tableSize = getNextPrime(initialCapacity);
-
-		@SuppressWarnings("unchecked")
-		TableEntry<K, V>[] temp = (TableEntry<K, V>[]) new TableEntry[tableSize];
-		table = temp;
+		table = new Slots<>(tableSize);
 	}
 
+
 	/** Task: Adds a new entry to the dictionary. If the given search
 	 *        key already exists in the dictionary, replaces the 
 	 *        corresponding value.
@@ -46,98 +83,327 @@ public class HashTableOpenAddressing<K, V> implements DictionaryInterface<K, V>
 		if (keyIn == null || valueIn == null) {
 			throw new IllegalArgumentException();
 		}
+		rehashStep();
 		V oldValue = null;
-		int index = getHashIndex(keyIn);
-		index = quadraticProbe(index, keyIn);
-		if (table[index] == null || table[index].isRemoved()) {
-			TableEntry newEntry = new TableEntry(keyIn, valueIn);
-			table[index] = newEntry;
-			numEntries++;
-			
+		int hash = hashStrategy.hash(keyIn);
+		int index = getHashIndex(hash, table.length);
+		if (probing == Probing.LINEAR) {
+			index = linearProbe(index, keyIn, hash);
 		}
 		else {
-			oldValue = (V) table[index];
-			table[index].setValue(valueIn);
-			if (numEntries > loadFactor * table.length) {
-				enlargeHashTable();
+			index = quadraticProbe(index, keyIn, hash);
+		}
+		if (index == -1) {
+			// Probe sequence is full; grow the table and try again
+			enlargeHashTable();
+			return add(keyIn, valueIn);
+		}
+		if (table.states[index] == CURRENT) {
+			oldValue = table.values[index];
+			table.values[index] = valueIn;
+		}
+		else {
+			int oldIndex = locateInOldTable(keyIn, hash);
+			if (oldIndex != -1) {
+				// Key has not been moved yet; replace its value in place
+				oldValue = oldTable.values[oldIndex];
+				oldTable.values[oldIndex] = valueIn;
+			}
+			else {
+				if (table.states[index] == REMOVED) {
+					numRemoved--;          // Reusing a removed location
+				}
+				table.set(index, keyIn, valueIn, hash);
+				numEntries++;
+				if ((numEntries > loadFactor * table.length) && (table.length < maxCapacity)) {
+					enlargeHashTable();
+				}
 			}
-			
 		}
 		return oldValue;
-		
 	}
 
-		private int linearProbe(int index, K keyIn) {
-		boolean found = false;
-		int removedStateIndex = -1; // Index of first removed location
-		if(table[index] == null){ 
-			return index;
+	/** Task: Adds a batch of entries, as add would one at a time, but
+	 *        sizes the table once for the whole batch instead of growing
+	 *        it step by step, and checks the load factor only once.
+	 *  @param keys    the search keys of the new entries
+	 *  @param values  the values to associate with them; values[i] goes
+	 *                 with keys[i] */
+	public void addAll(K[] keys, V[] values) {
+		addAll(keys, values, false);
+	}
+
+	/** Task: Adds a batch of entries as addAll(keys, values) does,
+	 *        optionally reading ahead in blocks of BATCH_BLOCK keys.
+	 *  @param keys      the search keys of the new entries
+	 *  @param values    the values to associate with them
+	 *  @param prefetch  true to hash a block of keys and read their home
+	 *                   slots' states before probing for any of them, so
+	 *                   that the cache misses of the block overlap; an
+	 *                   entry whose home slot is empty is then placed
+	 *                   without probing */
+	public void addAll(K[] keys, V[] values, boolean prefetch) {
+		if (keys.length != values.length) {
+			throw new IllegalArgumentException("There must be one value per key");
+		}
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] == null || values[i] == null) {
+				throw new IllegalArgumentException();
+			}
 		}
-		while (!found && table[index] != null) {	
-			if (table[index].isIn()) {
-				if (keyIn.equals(table[index].getKey())) {
-					found = true; 		// Key found
+		finishRehash();
+		// Size for the batch as if no key were already present
+		long needed = (long) Math.ceil((numEntries + (long) keys.length) / loadFactor);
+		if ((needed > table.length) && (table.length < maxCapacity)) {
+			rebuild((needed >= maxCapacity) ? maxCapacity
+					: Math.min(getNextPrime((int) needed), maxCapacity));
+		}
+		if (prefetch) {
+			int[] hashes = new int[BATCH_BLOCK];
+			int[] homes = new int[BATCH_BLOCK];
+			byte[] homeStates = new byte[BATCH_BLOCK];
+			for (int start = 0; start < keys.length; start += BATCH_BLOCK) {
+				int end = Math.min(start + BATCH_BLOCK, keys.length);
+				Slots<K, V> slots = table;
+				for (int i = start; i < end; i++) {
+					hashes[i - start] = hashStrategy.hash(keys[i]);
+					homes[i - start] = getHashIndex(hashes[i - start], slots.length);
+					homeStates[i - start] = slots.states[homes[i - start]];
 				}
-				else{            		// Follow probe sequence
-					index = (index + 1) % table.length;  
+				for (int i = start; i < end; i++) {
+					// Slots only fill up during a batch, so a home that was not
+					// empty still is not; one that was must be checked again.
+					// If the table grew during this block, the homes are stale
+					if ((table == slots) && (homeStates[i - start] == EMPTY)
+							&& (table.states[homes[i - start]] == EMPTY)) {
+						table.set(homes[i - start], keys[i], values[i], hashes[i - start]);
+						numEntries++;
+					}
+					else {
+						addToPresizedTable(hashes[i - start], keys[i], values[i]);
+					}
 				}
 			}
-			else { 						// Skip entries that were removed
-				// Save index of first location in removed state
-				if (removedStateIndex == -1) {
-					removedStateIndex = index;
-				}
-				index = (index + 1) % table.length;          
-			} 
-		} 
-		if (found || (removedStateIndex == -1) ) {
-			return index;                  // Index of either key or null
 		}
 		else {
-			return removedStateIndex;      // Index of an available location
+			for (int i = 0; i < keys.length; i++) {
+				addToPresizedTable(hashStrategy.hash(keys[i]), keys[i], values[i]);
+			}
 		}
 	}
 
-	 private int quadraticProbe(int index, K key) {
-		 boolean found = false;
-			int removedStateIndex = -1; // Index of first removed location
-			int increment = 0;
-			if(table[index] == null){ 
+	// Adds or replaces an entry during addAll, which has already sized the
+	// table and finished any rehash, so neither the load factor nor
+	// oldTable needs checking. If the probe sequence is full, grows the
+	// table at once, without leaving a rehash pending, and tries again.
+	private void addToPresizedTable(int hash, K key, V value) {
+		int home = getHashIndex(hash, table.length);
+		int index = (probing == Probing.LINEAR)
+				? linearProbe(home, key, hash) : quadraticProbe(home, key, hash);
+		if (index == -1) {
+			rebuild(getEnlargedCapacity(table.length));
+			addToPresizedTable(hash, key, value);
+		}
+		else if (table.states[index] == CURRENT) {
+			table.values[index] = value;
+		}
+		else {
+			if (table.states[index] == REMOVED) {
+				numRemoved--;
+			}
+			table.set(index, key, value, hash);
+			numEntries++;
+		}
+	}
+
+	// Follows the linear probe sequence and returns the index of either
+	// the entry with the given key or the first empty location, or -1 if
+	// the table is full. Removals under linear probing shift entries back
+	// instead of flagging them, so table holds no removed entries. equals is
+	// called only on keys whose cached hash matches.
+	private int linearProbe(int index, K keyIn, int hash) {
+		for (int probes = 0; probes < table.length; probes++) {
+			if ((table.states[index] == EMPTY)
+					|| ((table.hashes[index] == hash) && keyIn.equals(table.keys[index]))) {
 				return index;
 			}
-			while (!found && table[index] != null) {	
-				if (table[index].isIn()) {
-					if (key.equals(table[index].getKey())) {
-						found = true; 		// Key found
-					}
-					else{            		// Follow probe sequence
-						index = ((index + increment * increment) % table.length);
-						increment++;
-					}
+			index = nextIndex(index, probes, table.length);
+		}
+		return -1;
+	}
+
+	// Follows the quadratic probe sequence home + i^2 and returns the index
+	// of either the entry with the given key, the first removed location,
+	// or the first empty location, in that order of preference. On a prime
+	// table the sequence only reaches (table.length + 1) / 2 distinct
+	// slots, so it stops there and returns -1 if none of them is usable.
+	private int quadraticProbe(int index, K key, int hash) {
+		int removedStateIndex = -1; // Index of first removed location
+		int maxProbes = table.length / 2 + 1;
+		for (int increment = 0; increment < maxProbes; increment++) {
+			byte state = table.states[index];
+			if (state == EMPTY) {
+				// Key is not in the table; prefer an earlier removed slot
+				return (removedStateIndex == -1) ? index : removedStateIndex;
+			}
+			else if (state == CURRENT) {
+				if ((table.hashes[index] == hash) && key.equals(table.keys[index])) {
+					return index;		// Key found
 				}
-				else { 						// Skip entries that were removed
-					// Save index of first location in removed state
-					if (removedStateIndex == -1) {
-						removedStateIndex = index;
-					}
-					index = (index + increment * increment) % table.length;  
-					increment++;
-				} 
-			} 
-			if (found || (removedStateIndex == -1) ) {
-				return index;                  // Index of either key or null
 			}
-			else {
-				return removedStateIndex;      // Index of an available location
+			else if (removedStateIndex == -1) {
+				// Save index of first location in removed state
+				removedStateIndex = index;
 			}
-	 }
+			index = nextQuadraticIndex(index, increment, table.length);
+		}
+		return removedStateIndex;		// -1 if the sequence is exhausted
+	}
+
+	// Follows the same probe sequence as quadraticProbe, but only to find
+	// an existing entry: stops at the first empty location and returns the
+	// index of the entry with the given key, or -1 if it is not present.
+	private int locate(Slots<K, V> slots, int index, K key, int hash) {
+		int maxProbes = getMaxProbes(slots.length);
+		for (int increment = 0; increment < maxProbes; increment++) {
+			byte state = slots.states[index];
+			if (state == EMPTY) {
+				return -1;
+			}
+			else if ((state == CURRENT) && (slots.hashes[index] == hash)
+					&& key.equals(slots.keys[index])) {
+				return index;
+			}
+			index = nextIndex(index, increment, slots.length);
+		}
+		return -1;
+	}
+
+	// Lets an optimistic reader, which must not call equals on slots a
+	// writer may be changing, find key without comparing keys. Returns the
+	// position, as used by slotsAt, of the one current entry on key's
+	// probe sequences whose cached hash matches key's; -1 if there is none,
+	// or -2 if there are several. Only reads the table, and each probe
+	// loop is bounded.
+	int findHashMatch(K key) {
+		int hash = hashStrategy.hash(key);
+		int position = -1;
+		int matches = 0;
+		Slots<K, V> slots = table;
+		int index = getHashIndex(hash, slots.length);
+		int maxProbes = getMaxProbes(slots.length);
+		for (int increment = 0; (increment < maxProbes) && (slots.states[index] != EMPTY); increment++) {
+			if ((slots.states[index] == CURRENT) && (slots.hashes[index] == hash)) {
+				position = index;
+				matches++;
+			}
+			index = nextIndex(index, increment, slots.length);
+		}
+		Slots<K, V> old = oldTable;
+		if (old != null) {
+			index = getHashIndex(hash, old.length);
+			maxProbes = getMaxProbes(old.length);
+			for (int increment = 0; (increment < maxProbes) && (old.states[index] != EMPTY); increment++) {
+				if ((index >= rehashIndex) && (old.states[index] == CURRENT)
+						&& (old.hashes[index] == hash)) {
+					position = slots.length + index;
+					matches++;
+				}
+				index = nextIndex(index, increment, old.length);
+			}
+		}
+		return (matches <= 1) ? position : -2;
+	}
+
+	// Returns the key at a position from findHashMatch.
+	K keyAt(int position) {
+		return (position < table.length) ? table.keys[position] : oldTable.keys[indexAt(position)];
+	}
+
+	// Returns the value at a position from findHashMatch.
+	V valueAt(int position) {
+		return (position < table.length) ? table.values[position] : oldTable.values[indexAt(position)];
+	}
+
+	// Returns the index of the given key in the part of oldTable that has
+	// not been moved yet, or -1 if it is not there. Slots below rehashIndex
+	// still hold copies of entries already moved, which are ignored.
+	private int locateInOldTable(K key, int hash) {
+		if (oldTable == null) {
+			return -1;
+		}
+		int index = locate(oldTable, getHashIndex(hash, oldTable.length), key, hash);
+		return (index >= rehashIndex) ? index : -1;
+	}
+
+	// Returns the first empty or removed location on the probe sequence of
+	// index in slots, or -1 if the sequence is full. Used when rehashing,
+	// where the key is known not to be in slots, so no keys are compared.
+	private int findEmptySlot(Slots<K, V> slots, int index) {
+		int maxProbes = getMaxProbes(slots.length);
+		for (int increment = 0; increment < maxProbes; increment++) {
+			if (slots.states[index] != CURRENT) {
+				return index;
+			}
+			index = nextIndex(index, increment, slots.length);
+		}
+		return -1;
+	}
+
+	// Moves from home + i^2 to home + (i + 1)^2 by adding 2i + 1.
+	private int nextQuadraticIndex(int index, int increment, int tableSize) {
+		return (int) ((index + 2L * increment + 1) % tableSize);
+	}
+
+	// Returns the next index on the probe sequence in use, where increment
+	// is the number of probes made so far.
+	private int nextIndex(int index, int increment, int tableSize) {
+		if (probing == Probing.LINEAR) {
+			return (index + 1 == tableSize) ? 0 : index + 1;
+		}
+		return nextQuadraticIndex(index, increment, tableSize);
+	}
+
+	// Returns how many distinct slots the probe sequence in use can reach.
+	private int getMaxProbes(int tableSize) {
+		return (probing == Probing.LINEAR) ? tableSize : tableSize / 2 + 1;
+	}
+
+	// Reduces a hash from hashStrategy to [0, table.length) with a
+	// multiply-shift, which uses the high bits of the hash and avoids a
+	// division.
+	private int getHashIndex(int hash, int tableSize)	{
+		int hashIndex = (int) (((hash & 0xFFFFFFFFL) * tableSize) >>> 32);
 
-	private int getHashIndex(K key)	{
-		int hashIndex = Math.abs(key.hashCode() % 10) % table.length;
-		
 		return hashIndex;
 	}
 
+	// Returns the number of slots in the current table.
+	int getCapacity() {
+		return table.length;
+	}
+
+	// Returns the average number of slots examined to find each entry
+	// currently in the table; 1.0 means every entry sits in its home slot.
+	double getAverageProbeLength() {
+		finishRehash();
+		long totalProbes = 0;
+		for (int i = 0; i < table.length; i++) {
+			if (table.states[i] == CURRENT) {
+				int index = getHashIndex(table.hashes[i], table.length);
+				int increment = 0;
+				int probes = 1;
+				while (index != i) {
+					index = nextIndex(index, increment, table.length);
+					increment++;
+					probes++;
+				}
+				totalProbes += probes;
+			}
+		}
+		return (numEntries == 0) ? 0 : (double) totalProbes / numEntries;
+	}
+
 	/** Task: Removes a specific entry from the dictionary.
 	 *  @param key  an object search key of the entry to be removed
 	 *  @return either the value that was associated with the search key 
@@ -145,15 +411,34 @@ public class HashTableOpenAddressing<K, V> implements DictionaryInterface<K, V>
 	@Override
 	public V remove(K key) {
 		V removedValue = null;
-		int index = getHashIndex(key);
-		//index = linearProbe(index, key);
-		index = quadraticProbe(index, key);
+		rehashStep();
+		int hash = hashStrategy.hash(key);
+		int index = locate(table, getHashIndex(hash, table.length), key, hash);
 
 		if (index != -1){
 			// Key found; flag entry as removed and return its value
-			removedValue = table[index].getValue();
-			table[index].setToRemoved();
+			removedValue = table.values[index];
 			numEntries--;
+			if (probing == Probing.LINEAR) {
+				shiftBack(index);
+			}
+			else {
+				table.setToRemoved(index);
+				numRemoved++;
+				if (numRemoved > MAX_REMOVED_RATIO * table.length) {
+					compactHashTable();
+				}
+			}
+		}
+		else {
+			// Key may be in the part of oldTable not moved yet; oldTable is
+			// discarded once moved, so its removed entries are just skipped
+			index = locateInOldTable(key, hash);
+			if (index != -1) {
+				removedValue = oldTable.values[index];
+				oldTable.setToRemoved(index);
+				numEntries--;
+			}
 		} 
 		// Else not found; result is null
 		return removedValue;
@@ -165,16 +450,87 @@ public class HashTableOpenAddressing<K, V> implements DictionaryInterface<K, V>
 	 *          or null if no such object exists */
 	@Override
 	public V getValue(K key) {
-		int index = getHashIndex(key);
-		TableEntry item = table[index];
-		if ((item != null) && item.isIn()) {
-			return (V) item.getValue();
+		int hash = hashStrategy.hash(key);
+		int index = locate(table, getHashIndex(hash, table.length), key, hash);
+		if (index != -1) {
+			return table.values[index];
+		}
+		index = locateInOldTable(key, hash);
+		if (index != -1) {
+			return oldTable.values[index];
 		}
 		else {
 			return null;
 		}
 	}
 
+	/** Task: Retrieves the values associated with a batch of search keys,
+	 *        as getValue would for each key. Works through the keys in
+	 *        blocks: first hashes every key of a block and reads its home
+	 *        slot's state, then reads the cached hash of each occupied home
+	 *        slot and, where it matches, the key and value, and only then
+	 *        compares keys. The loads within each pass do not depend on one
+	 *        another, so their cache misses overlap instead of following
+	 *        one after another. A key that is not in its home slot falls
+	 *        back to the usual probe.
+	 *  @param keys  the search keys of the entries to be retrieved
+	 *  @param out   an array at least as long as keys; out[i] receives the
+	 *               value associated with keys[i], or null
+	 *  @return the number of keys found */
+	public int getAll(K[] keys, V[] out) {
+		if (out.length < keys.length) {
+			throw new IllegalArgumentException("out must be at least as long as keys");
+		}
+		int found = 0;
+		int[] hashes = new int[BATCH_BLOCK];
+		int[] homes = new int[BATCH_BLOCK];
+		byte[] homeStates = new byte[BATCH_BLOCK];
+		Object[] homeKeys = new Object[BATCH_BLOCK];    // null unless the hash matched
+		Object[] homeValues = new Object[BATCH_BLOCK];
+		for (int start = 0; start < keys.length; start += BATCH_BLOCK) {
+			int count = Math.min(BATCH_BLOCK, keys.length - start);
+			for (int j = 0; j < count; j++) {
+				hashes[j] = hashStrategy.hash(keys[start + j]);
+				homes[j] = getHashIndex(hashes[j], table.length);
+				homeStates[j] = table.states[homes[j]];
+			}
+			for (int j = 0; j < count; j++) {
+				homeKeys[j] = null;
+				if ((homeStates[j] == CURRENT) && (table.hashes[homes[j]] == hashes[j])) {
+					homeKeys[j] = table.keys[homes[j]];
+					homeValues[j] = table.values[homes[j]];
+				}
+			}
+			for (int j = 0; j < count; j++) {
+				K key = keys[start + j];
+				V value = null;
+				if ((homeKeys[j] != null) && key.equals(homeKeys[j])) {
+					// The cast is safe because homeValues[j] came from table.values
+					@SuppressWarnings("unchecked")
+					V homeValue = (V) homeValues[j];
+					value = homeValue;
+				}
+				else if (homeStates[j] != EMPTY) {
+					int index = locate(table, homes[j], key, hashes[j]);
+					if (index != -1) {
+						value = table.values[index];
+					}
+				}
+				if ((value == null) && (oldTable != null)) {
+					int index = locateInOldTable(key, hashes[j]);
+					if (index != -1) {
+						value = oldTable.values[index];
+					}
+				}
+				out[start + j] = value;
+				if (value != null) {
+					found++;
+				}
+			}
+		}
+		return found;
+	}
+
 	/** Task: Sees whether a specific entry is in the dictionary.
 	 *  @param key  an object search key of the desired entry
 	 *  @return true if key is associated with an entry in the
@@ -234,29 +590,227 @@ public class HashTableOpenAddressing<K, V> implements DictionaryInterface<K, V>
 	@Override
 	public void clear() {
 			for (int i = 0; i < table.length; i ++) {
-				table[i] = null;
+				table.setToEmpty(i);
 			}
+			oldTable = null;
+			rehashIndex = 0;
 			numEntries = 0;
+			numRemoved = 0;
 
 	}
 
-	private void enlargeHashTable() {
-		TableEntry<K, V>[] oldTable = table;
-		int capacity = getNextPrime(oldTable.length * 2);
+	/** Task: Sets the largest number of slots the hash table may grow to.
+	 *        Once the table reaches this size it keeps accepting entries
+	 *        beyond its load factor until the probe sequence of a new key
+	 *        is full, at which point add throws IllegalStateException.
+	 *  @param maxCapacityIn  the ceiling on the size of the hash table; it
+	 *                        is rounded down to a prime */
+	public void setMaxCapacity(int maxCapacityIn) {
+		if (maxCapacityIn < table.length) {
+			throw new IllegalArgumentException("Maximum capacity must be at " +
+					"least the current capacity of " + table.length);
+		}
+		else if (maxCapacityIn > MAX_CAPACITY) {
+			throw new IllegalArgumentException("Maximum capacity must not " +
+					"exceed " + MAX_CAPACITY);
+		}
+		maxCapacity = getPreviousPrime(maxCapacityIn);
+	}
 
-		// The case is safe because the new array contains null entries
+	/** Task: Chooses how the hash table grows. When incremental rehashing
+	 *        is on, an enlargement only allocates the larger table, and
+	 *        each later add or remove moves a bounded number of slots from
+	 *        the old table, so no single call pays for the whole rehash.
+	 *        Under quadratic probing, the rehash that clears out removed
+	 *        entries is spread out the same way; when incremental
+	 *        rehashing is off, it is done in full by the remove that
+	 *        triggers it.
+	 *  @param incremental  true to spread rehashing over later operations,
+	 *                      false to rehash everything at once */
+	public void setIncrementalRehashing(boolean incremental) {
+		if (!incremental) {
+			finishRehash();
+		}
+		incrementalRehash = incremental;
+	}
+
+	/** Task: Compiles the current entries into a read-only dictionary with
+	 *        a minimal perfect hash, which has one slot per entry and finds
+	 *        any key with a single probe. Later changes to this table do
+	 *        not affect the result.
+	 *  @return a PerfectHashTable holding the same entries */
+	public PerfectHashTable<K, V> freeze() {
+		// The casts are safe because the new arrays contain null entries
+		@SuppressWarnings("unchecked")
+		K[] keys = (K[]) new Object[numEntries];
 		@SuppressWarnings("unchecked")
-		TableEntry<K, V>[] temp = (TableEntry<K, V>[]) new TableEntry[capacity];
-		table = temp;
-		numEntries = 0; 
+		V[] values = (V[]) new Object[numEntries];
+		int count = 0;
+		for (int position = 0; count < numEntries; position++) {
+			Slots<K, V> slots = slotsAt(position);
+			if (slots != null) {
+				keys[count] = slots.keys[indexAt(position)];
+				values[count] = slots.values[indexAt(position)];
+				count++;
+			}
+		}
+		return new PerfectHashTable<>(keys, values, hashStrategy);
+	}
+
+	private void enlargeHashTable() {
+		finishRehash();
+		int capacity = getEnlargedCapacity(table.length);
+		if (incrementalRehash) {
+			oldTable = table;
+			rehashIndex = 0;
+			table = new Slots<>(capacity);
+			numRemoved = 0;
+		}
+		else {
+			rebuild(capacity);
+		}
+	}
 
-		// Rehash dictionary entries from old array to the new 
-		for (int index = 0; index < oldTable.length; index++) {
-			if ((oldTable[index] != null) && oldTable[index].isIn()) {
-				add(oldTable[index].getKey(), oldTable[index].getValue());  
+	// Returns the size to grow a table of the given size to: about double,
+	// but never past maxCapacity, which is prime.
+	private int getEnlargedCapacity(int tableSize) {
+		if (tableSize >= maxCapacity) {
+			throw new IllegalStateException("Attempt to enlarge a dictionary " +
+					"beyond its maximum capacity of " + maxCapacity);
+		}
+		int capacity = maxCapacity;
+		if (tableSize * 2L < maxCapacity) {
+			capacity = Math.min(getNextPrime(tableSize * 2), maxCapacity);
+		}
+		return capacity;
+	}
+
+	// Moves up to REHASH_STEP slots of oldTable into table.
+	private void rehashStep() {
+		if (oldTable != null) {
+			moveOldSlots(REHASH_STEP);
+		}
+	}
+
+	// Moves all remaining slots of oldTable into table.
+	private void finishRehash() {
+		if (oldTable != null) {
+			moveOldSlots(oldTable.length);
+		}
+	}
+
+	private void moveOldSlots(int maxSlots) {
+		int end = (int) Math.min((long) rehashIndex + maxSlots, oldTable.length);
+		for (; rehashIndex < end; rehashIndex++) {
+			if (oldTable.states[rehashIndex] == CURRENT) {
+				int hash = oldTable.hashes[rehashIndex];
+				int index = findEmptySlot(table, getHashIndex(hash, table.length));
+				if (index == -1) {
+					// Probe sequence of the new table is full; rare, so fall
+					// back to rehashing everything into a still larger table
+					rebuild(getEnlargedCapacity(table.length));
+					return;
+				}
+				if (table.states[index] == REMOVED) {
+					numRemoved--;
+				}
+				table.set(index, oldTable.keys[rehashIndex], oldTable.values[rehashIndex], hash);
 			}
-		} 
-	} 
+		}
+		if (rehashIndex == oldTable.length) {
+			oldTable = null;
+			rehashIndex = 0;
+		}
+	}
+
+	// Rehashes every current entry into a new table of at least the given
+	// size, growing further if a probe sequence fills up along the way.
+	// No keys are compared.
+	private void rebuild(int capacity) {
+		Slots<K, V> newTable = null;
+		while (newTable == null) {
+			newTable = new Slots<>(capacity);
+			if (!moveEntries(table, 0, newTable) || ((oldTable != null)
+					&& !moveEntries(oldTable, rehashIndex, newTable))) {
+				newTable = null;
+				capacity = getEnlargedCapacity(capacity);
+			}
+		}
+		table = newTable;
+		oldTable = null;
+		rehashIndex = 0;
+		numRemoved = 0;
+	}
+
+	// Rehashes the table at its current size to discard removed entries.
+	// In incremental mode, the table becomes oldTable, as in an
+	// enlargement, and later adds and removes move its current entries; a
+	// compaction due while a move is pending waits for a later remove.
+	private void compactHashTable() {
+		if (!incrementalRehash) {
+			rebuild(table.length);
+		}
+		else if (oldTable == null) {
+			oldTable = table;
+			rehashIndex = 0;
+			table = new Slots<>(table.length);
+			numRemoved = 0;
+		}
+	}
+
+	// Fills the hole left by removing the entry at index hole under linear
+	// probing: each later entry in the same cluster whose probe sequence
+	// passes through the hole moves back into it, leaving a new hole behind.
+	private void shiftBack(int hole) {
+		table.setToEmpty(hole);
+		int index = nextIndex(hole, 0, table.length);
+		while (table.states[index] != EMPTY) {
+			int home = getHashIndex(table.hashes[index], table.length);
+			if (Math.floorMod(hole - home, table.length)
+					< Math.floorMod(index - home, table.length)) {
+				table.set(hole, table.keys[index], table.values[index], table.hashes[index]);
+				table.setToEmpty(index);
+				hole = index;
+			}
+			index = nextIndex(index, 0, table.length);
+		}
+	}
+
+	// Places the current entries of source, starting at index from, into
+	// destination; returns false if one of them does not fit.
+	private boolean moveEntries(Slots<K, V> source, int from,
+			Slots<K, V> destination) {
+		for (int i = from; i < source.length; i++) {
+			if (source.states[i] == CURRENT) {
+				int index = findEmptySlot(destination,
+						getHashIndex(source.hashes[i], destination.length));
+				if (index == -1) {
+					return false;
+				}
+				destination.set(index, source.keys[i], source.values[i], source.hashes[i]);
+			}
+		}
+		return true;
+	}
+
+	// Returns the slots that hold a position in the current table followed
+	// by the part of oldTable not moved yet, or null if that position holds
+	// no current entry. indexAt gives the position's index in those slots.
+	private Slots<K, V> slotsAt(int position) {
+		Slots<K, V> slots = null;
+		if (position < table.length) {
+			slots = table;
+		}
+		else if (position - table.length >= rehashIndex) {
+			slots = oldTable;
+		}
+		return ((slots != null) && (slots.states[indexAt(position)] == CURRENT))
+				? slots : null;
+	}
+
+	private int indexAt(int position) {
+		return (position < table.length) ? position : position - table.length;
+	}
 
 	// Returns a prime integer that is >= the given integer.
 	private int getNextPrime(int integer) {
@@ -272,6 +826,16 @@ public class HashTableOpenAddressing<K, V> implements DictionaryInterface<K, V>
 		return integer;
 	} 
 
+	// Returns a prime integer that is <= the given integer, or the given
+	// integer itself if there is none.
+	private int getPreviousPrime(int integer) {
+		int candidate = (integer % 2 == 0) ? integer - 1 : integer;
+		while ((candidate > 2) && !isPrime(candidate)) {
+			candidate = candidate - 2;
+		}
+		return (candidate > 2) ? candidate : integer;
+	}
+
 	// Returns true if the given integer is prime.
 	private boolean isPrime(int integer) {
 		boolean result;
@@ -288,7 +852,7 @@ public class HashTableOpenAddressing<K, V> implements DictionaryInterface<K, V>
 		//TODO 
 		else  {				// integer is odd and >= 5
 			result = true; 	// assume prime
-			for (int divisor = 3; !done && (divisor * divisor <= integer); 																	divisor = divisor + 2) {
+			for (int divisor = 3; !done && ((long) divisor * divisor <= integer); 																	divisor = divisor + 2) {
 				if (integer % divisor == 0) {
 					result = false; // divisible; not prime
 					done = true;
@@ -298,17 +862,25 @@ public class HashTableOpenAddressing<K, V> implements DictionaryInterface<K, V>
 		return result;
 	}
 
+
 	public String toString() {
 		String result = "";
 		for(int i = 0; i < table.length; i++) {
 			result += i + " ";
-			if(table[i] == null)
+			if(table.states[i] == EMPTY)
 				result += "null\n";
 			else{
-				if(table[i].isRemoved() )
+				if(table.states[i] == REMOVED)
 					result += "has been set to \"removed\"\n";
 				else
-					result += table[i].getKey() + " " + table[i].getValue() + "\n";
+					result += table.keys[i] + " " + table.values[i] + "\n";
+			}
+		}
+		if (oldTable != null) {
+			result += "Not yet moved from the previous table:\n";
+			for (int i = rehashIndex; i < oldTable.length; i++) {
+				if (oldTable.states[i] == CURRENT)
+					result += oldTable.keys[i] + " " + oldTable.values[i] + "\n";
 			}
 		}
 		return result;
@@ -333,10 +905,10 @@ public class HashTableOpenAddressing<K, V> implements DictionaryInterface<K, V>
 
 			if (hasNext()) {
 				// Skip table locations that do not contain a current entry
-				while ((table[currentIndex] == null) || table[currentIndex].isRemoved()){
+				while (slotsAt(currentIndex) == null){
 					currentIndex++;
 				} 
-				result = table[currentIndex].getKey();
+				result = slotsAt(currentIndex).keys[indexAt(currentIndex)];
 				numberLeft--;
 				currentIndex++;
 			}
@@ -374,10 +946,10 @@ public class HashTableOpenAddressing<K, V> implements DictionaryInterface<K, V>
 
 			if (hasNext()) {
 				// Skip table locations that do not contain a current entry
-				while ((table[currentIndex] == null) || table[currentIndex].isRemoved()){
+				while (slotsAt(currentIndex) == null){
 					currentIndex++;
 				} 
-				result = table[currentIndex].getValue();
+				result = slotsAt(currentIndex).values[indexAt(currentIndex)];
 				numberLeft--;
 				currentIndex++;
 			}
@@ -392,55 +964,52 @@ public class HashTableOpenAddressing<K, V> implements DictionaryInterface<K, V>
 		} 
 	} 
 	
-	//****************************TableEntry**************************
-	public static class TableEntry<K, V> {
-		private K key;
-		private V value;
-		private States state;    // Flags whether this entry is in the hash table
-		private enum States {CURRENT, REMOVED} // Possible values of state
+	//****************************Slots**************************
+	// The slots of one hash table as parallel arrays: an entry costs two
+	// array references, its hash and a state byte instead of an object of
+	// its own, and probing scans the compact states array before touching
+	// a key. Keeping each key's hash from hashStrategy lets probes skip
+	// equals for keys with a different hash, and lets rehashing place
+	// entries without calling hashCode again.
+	private static class Slots<K, V> {
+		private final K[] keys;
+		private final V[] values;
+		private final int[] hashes;    // hashStrategy.hash of each key
+		private final byte[] states;   // EMPTY, CURRENT or REMOVED
+		private final int length;      // Number of slots
 
-		public TableEntry(K key, V value) {
-			this.key = key;
-			this.value = value;
-			state = States.CURRENT;
+		private Slots(int size) {
+			// The casts are safe because the new arrays contain null entries
+			@SuppressWarnings("unchecked")
+			K[] tempKeys = (K[]) new Object[size];
+			@SuppressWarnings("unchecked")
+			V[] tempValues = (V[]) new Object[size];
+			keys = tempKeys;
+			values = tempValues;
+			hashes = new int[size];
+			states = new byte[size];
+			length = size;
 		}
 
-		private K getKey() {
-			return key;
-		} 
-
-		private V getValue()	{
-			return value;
-		} 
-
-		private void setValue(V newValue)	{
-			value = newValue;
-		} 
-
-		// Returns true if this entry is currently in the hash table.
-		private boolean isIn() {
-			if(state == States.CURRENT) {
-				return true;
-			}
-		
-			return false;
-		} 
-
-		// Returns true if this entry has been removed from the hash table.
-		private boolean isRemoved()	{
-			if(state == States.REMOVED) {
-				return true;
-			}
-			return false;
-		} 
+		private void set(int index, K key, V value, int hash) {
+			keys[index] = key;
+			values[index] = value;
+			hashes[index] = hash;
+			states[index] = CURRENT;
+		}
 
-		// Sets the state of this entry to removed.
-		private void setToRemoved()	{
-			state = States.REMOVED;
+		// Flags the entry at index as removed and lets its key and value
+		// be garbage collected.
+		private void setToRemoved(int index) {
+			keys[index] = null;
+			values[index] = null;
+			states[index] = REMOVED;
 		}
 
-		public String toString() {
-			return "Key-" + key + ": Value-" + value;
+		private void setToEmpty(int index) {
+			keys[index] = null;
+			values[index] = null;
+			states[index] = EMPTY;
 		}
 	}
 	
@@ -0,0 +1,620 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+   A class that implements a thread-safe dictionary by using hopscotch
+   hashing. Every entry sits within NEIGHBORHOOD slots of its home
+   bucket, and each bucket keeps a bitmap of which slots of its
+   neighborhood hold its own entries. A lookup reads one bitmap and
+   compares only the keys it points to, so it stays short up to a load
+   of about 0.9. Beyond that, moving a free slot into reach starts to
+   fail, and each failure doubles the table.
+
+   To add an entry, the table finds the nearest free slot after the home
+   bucket. If that slot is out of reach, it moves entries closer to their
+   own homes one at a time. Each move opens the free slot further back,
+   until the slot is inside the home bucket's neighborhood.
+
+   Every write touches slots between the home bucket and that free slot.
+   So the slots are split into segments, each guarded by a StampedLock.
+   A writer locks the segments it touches, in ascending order. Readers
+   use optimistic stamps on the one or two segments of a neighborhood
+   and retry under read locks only when a writer intervened. So that
+   equals never runs on a key a writer is moving, the optimistic read
+   only picks out the slot whose stored hash matches and reads its key
+   and value; the keys are compared after validation. Growing the
+   table takes every lock. To keep neighborhoods from wrapping, the
+   table ends with NEIGHBORHOOD - 1 slots that are not home to any
+   bucket.
+
+   Keys whose 32-bit hashes are equal share one home bucket in every
+   table, so no more than NEIGHBORHOOD of them fit in the table, however
+   large it grows. A key that finds no room goes to a small overflow
+   table if its neighborhood is full of its own hash, or if the table is
+   too lightly loaded for growing to help. The overflow table is a
+   StripedHashTable. Lookups search it only when it is not empty and
+   the neighborhood misses.
+*/
+public class HopscotchHashTable<K, V> implements DictionaryInterface<K, V> {
+	private static final int NEIGHBORHOOD = 64;    // Bits in a hop bitmap
+	private static final int MAX_SCAN = 4096;      // Slots searched for a free one
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final int DEFAULT_SEGMENTS = 64;
+	private static final int MAX_BUCKETS = 1 << 30;
+	private static final double DEFAULT_LOAD_FACTOR = 0.9;
+	private final AtomicInteger numEntries = new AtomicInteger();
+	private volatile Table<K, V> table;
+	// Entries that no table size could place; a key's home segments are
+	// locked whenever it is written here
+	private final StripedHashTable<K, V> overflow;
+	private final AtomicInteger numOverflowed = new AtomicInteger();
+	private final StampedLock[] locks;             // One per segment
+	private final double loadFactor;
+	private final HashStrategy<? super K> hashStrategy;
+
+	public HopscotchHashTable() {
+		this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+	}
+
+	public HopscotchHashTable(int initialCapacity, double loadFactorIn) {
+		this(initialCapacity, loadFactorIn, HashStrategy.murmur3(), DEFAULT_SEGMENTS);
+	}
+
+	/** @param concurrencyLevel  the number of segments, and so of locks */
+	public HopscotchHashTable(int initialCapacity, double loadFactorIn,
+			HashStrategy<? super K> hashStrategyIn, int concurrencyLevel) {
+		if (loadFactorIn <= 0 || loadFactorIn >= 1 || initialCapacity <= 0) {
+			throw new IllegalArgumentException("Initial capacity must be " +
+					"greater than 0 and load factor between 0 and 1");
+		}
+		else if (hashStrategyIn == null) {
+			throw new IllegalArgumentException("Hash strategy must not be null");
+		}
+		else if (concurrencyLevel <= 0) {
+			throw new IllegalArgumentException("Concurrency level must be " +
+					"greater than 0");
+		}
+		else if (initialCapacity / loadFactorIn > MAX_BUCKETS) {
+			throw new IllegalStateException("Attempt to create a dictionary " +
+					"whose capacity is larger than " + MAX_BUCKETS);
+		}
+		loadFactor = loadFactorIn;
+		hashStrategy = hashStrategyIn;
+		locks = new StampedLock[concurrencyLevel];
+		for (int i = 0; i < concurrencyLevel; i++) {
+			locks[i] = new StampedLock();
+		}
+		table = new Table<>((int) Math.ceil(initialCapacity / loadFactor), concurrencyLevel);
+		overflow = new StripedHashTable<>(1, hashStrategy);
+	}
+
+	/** Task: Adds a new entry to the dictionary. If the given search
+	 *        key already exists in the dictionary, replaces the
+	 *        corresponding value.
+	 *  @param key    an object search key of the new entry
+	 *  @param value  an object associated with the search key
+	 *  @return either null if the new entry was added to the dictionary or the
+	 *          value that was associated with key if that value was replaced */
+	@Override
+	public V add(K key, V value) {
+		if (key == null || value == null) {
+			throw new IllegalArgumentException();
+		}
+		int hash = hashStrategy.hash(key);
+		while (true) {
+			Table<K, V> t = table;
+			int home = t.getHomeBucket(hash);
+			int firstSegment = t.getSegment(home);
+			int lastSegment = t.getSegment(home + NEIGHBORHOOD - 1);
+			int limit = Math.min(home + MAX_SCAN, t.keys.length);
+			long[] stamps = new long[t.getSegment(limit - 1) - firstSegment + 1];
+			lockSegments(stamps, firstSegment, lastSegment);
+			int free = -1;
+			boolean overflowed = false;
+			try {
+				if (table != t) {
+					continue;                     // Grown while we waited
+				}
+				int index = t.locate(home, key, hash);
+				if (index != -1) {
+					V oldValue = t.values[index];
+					t.values[index] = value;
+					return oldValue;
+				}
+				if ((numOverflowed.get() > 0) && overflow.contains(key)) {
+					return overflow.add(key, value);
+				}
+				// Find the nearest free slot, locking segments as the search
+				// reaches them
+				for (int i = home; i < limit; i++) {
+					if (t.getSegment(i) > lastSegment) {
+						lastSegment = t.getSegment(i);
+						stamps[lastSegment - firstSegment] = locks[lastSegment].writeLock();
+					}
+					if (t.keys[i] == null) {
+						free = i;
+						break;
+					}
+				}
+				if (free != -1) {
+					free = t.hopInto(home, free);
+				}
+				if (free != -1) {
+					t.keys[free] = key;
+					t.values[free] = value;
+					t.hashes[free] = hash;
+					t.hopInfo[home] |= 1L << (free - home);
+					numEntries.incrementAndGet();
+				}
+				else if (!canGrowFor(t, home, hash)) {
+					addToOverflow(key, value);
+					overflowed = true;
+				}
+			}
+			finally {
+				unlockSegments(stamps, firstSegment, lastSegment);
+			}
+			if (overflowed) {
+				return null;
+			}
+			else if (free == -1) {
+				enlargeHashTable(t);            // No room in reach; grow and retry
+			}
+			else {
+				if (numEntries.get() > t.numBuckets * loadFactor) {
+					enlargeHashTable(t);
+				}
+				return null;
+			}
+		}
+	}
+
+	/** Task: Removes a specific entry from the dictionary.
+	 *  @param key  an object search key of the entry to be removed
+	 *  @return either the value that was associated with the search key
+	 *          or null if no such object exists */
+	@Override
+	public V remove(K key) {
+		int hash = hashStrategy.hash(key);
+		while (true) {
+			Table<K, V> t = table;
+			int home = t.getHomeBucket(hash);
+			int firstSegment = t.getSegment(home);
+			int lastSegment = t.getSegment(home + NEIGHBORHOOD - 1);
+			long[] stamps = new long[lastSegment - firstSegment + 1];
+			lockSegments(stamps, firstSegment, lastSegment);
+			try {
+				if (table != t) {
+					continue;
+				}
+				int index = t.locate(home, key, hash);
+				if (index == -1) {
+					if (numOverflowed.get() == 0) {
+						return null;
+					}
+					V removedValue = overflow.remove(key);
+					if (removedValue != null) {
+						numOverflowed.decrementAndGet();
+						numEntries.decrementAndGet();
+					}
+					return removedValue;
+				}
+				V removedValue = t.values[index];
+				t.keys[index] = null;
+				t.values[index] = null;
+				t.hopInfo[home] &= ~(1L << (index - home));
+				numEntries.decrementAndGet();
+				return removedValue;
+			}
+			finally {
+				unlockSegments(stamps, firstSegment, lastSegment);
+			}
+		}
+	}
+
+	/** Task: Retrieves the value associated with a given search key.
+	 *  @param key  an object search key of the entry to be retrieved
+	 *  @return either the value that is associated with the search key
+	 *          or null if no such object exists */
+	@Override
+	public V getValue(K key) {
+		int hash = hashStrategy.hash(key);
+		V value = getFromTable(hash, key);
+		if ((value == null) && (numOverflowed.get() > 0)) {
+			value = overflow.getValue(key);
+		}
+		return value;
+	}
+
+	/** Task: Sees whether a specific entry is in the dictionary.
+	 *  @param key  an object search key of the desired entry
+	 *  @return true if key is associated with an entry in the
+	 *          dictionary */
+	@Override
+	public boolean contains(K key) {
+		return getValue(key) != null;
+	}
+
+	// Looks key up in the current table, optimistically first. The
+	// optimistic pass compares no keys until the stamps validate, and
+	// reads again under the read locks if several slots share the hash.
+	private V getFromTable(int hash, K key) {
+		Table<K, V> t = table;
+		int home = t.getHomeBucket(hash);
+		StampedLock first = locks[t.getSegment(home)];
+		StampedLock last = locks[t.getSegment(home + NEIGHBORHOOD - 1)];
+		long firstStamp = first.tryOptimisticRead();
+		long lastStamp = last.tryOptimisticRead();
+		if ((firstStamp != 0) && (lastStamp != 0)) {
+			try {
+				int index = t.findHashMatch(home, hash);
+				K candidate = (index >= 0) ? t.keys[index] : null;
+				V value = (index >= 0) ? t.values[index] : null;
+				if ((index != -2) && first.validate(firstStamp) && last.validate(lastStamp)
+						&& (table == t)) {
+					// Only now is the candidate safe to compare
+					return ((candidate != null) && key.equals(candidate)) ? value : null;
+				}
+			}
+			catch (RuntimeException e) {
+				// Thrown by a torn read, unless nothing was written meanwhile
+				if (first.validate(firstStamp) && last.validate(lastStamp)
+						&& (table == t)) {
+					throw e;
+				}
+			}
+		}
+		// A writer got in the way; read again under the read locks
+		while (true) {
+			t = table;
+			home = t.getHomeBucket(hash);
+			int firstSegment = t.getSegment(home);
+			int lastSegment = t.getSegment(home + NEIGHBORHOOD - 1);
+			long firstRead = locks[firstSegment].readLock();
+			long lastRead = (lastSegment != firstSegment) ? locks[lastSegment].readLock() : 0;
+			try {
+				if (table == t) {
+					int index = t.locate(home, key, hash);
+					return (index == -1) ? null : t.values[index];
+				}
+			}
+			finally {
+				if (lastSegment != firstSegment) {
+					locks[lastSegment].unlockRead(lastRead);
+				}
+				locks[firstSegment].unlockRead(firstRead);
+			}
+		}
+	}
+
+	/** Task: Creates an iterator over a snapshot of the search keys, taken
+	 *        while no writer can run.
+	 *  @return an iterator that provides sequential access to the search
+	 *          keys in the dictionary */
+	@Override
+	public Iterator<K> getKeyIterator() {
+		List<K> snapshot = new ArrayList<>();
+		long[] stamps = lockAllSegments();
+		try {
+			Table<K, V> t = table;
+			for (int i = 0; i < t.keys.length; i++) {
+				if (t.keys[i] != null) {
+					snapshot.add(t.keys[i]);
+				}
+			}
+			Iterator<K> overflowKeys = overflow.getKeyIterator();
+			while (overflowKeys.hasNext()) {
+				snapshot.add(overflowKeys.next());
+			}
+		}
+		finally {
+			unlockAllSegments(stamps);
+		}
+		return snapshot.iterator();
+	}
+
+	/** Task: Creates an iterator over a snapshot of the values, taken the
+	 *        same way as for getKeyIterator.
+	 *  @return an iterator that provides sequential access to the values
+	 *          in the dictionary */
+	@Override
+	public Iterator<V> getValueIterator() {
+		List<V> snapshot = new ArrayList<>();
+		long[] stamps = lockAllSegments();
+		try {
+			Table<K, V> t = table;
+			for (int i = 0; i < t.keys.length; i++) {
+				if (t.keys[i] != null) {
+					snapshot.add(t.values[i]);
+				}
+			}
+			Iterator<V> overflowValues = overflow.getValueIterator();
+			while (overflowValues.hasNext()) {
+				snapshot.add(overflowValues.next());
+			}
+		}
+		finally {
+			unlockAllSegments(stamps);
+		}
+		return snapshot.iterator();
+	}
+
+	/** Task: Gets the size of the dictionary.
+	 *  @return the number of entries (key-value pairs) currently
+	 *          in the dictionary */
+	@Override
+	public int getSize() {
+		return numEntries.get();
+	}
+
+	/** Task: Sees whether the dictionary is empty.
+	 *  @return true if the dictionary is empty */
+	@Override
+	public boolean isEmpty() {
+		return getSize() == 0;
+	}
+
+	/** Task: Sees whether the dictionary is full.
+	 *  @return false, since the table grows as needed */
+	@Override
+	public boolean isFull() {
+		return false;
+	}
+
+	/** Task: Removes all entries from the dictionary. */
+	@Override
+	public void clear() {
+		long[] stamps = lockAllSegments();
+		try {
+			Table<K, V> t = table;
+			table = new Table<>(t.numBuckets, locks.length);
+			overflow.clear();
+			numOverflowed.set(0);
+			numEntries.set(0);
+		}
+		finally {
+			unlockAllSegments(stamps);
+		}
+	}
+
+	// Returns the number of home buckets.
+	int getCapacity() {
+		return table.numBuckets;
+	}
+
+	// Returns the average number of keys compared to find each entry:
+	// the rank of its bit among the set bits of its home's bitmap.
+	double getAverageProbeLength() {
+		long[] stamps = lockAllSegments();
+		try {
+			Table<K, V> t = table;
+			long totalProbes = 0;
+			int count = 0;
+			for (int home = 0; home < t.numBuckets; home++) {
+				int entries = Long.bitCount(t.hopInfo[home]);
+				totalProbes += (long) entries * (entries + 1) / 2;
+				count += entries;
+			}
+			return (count == 0) ? 0 : (double) totalProbes / count;
+		}
+		finally {
+			unlockAllSegments(stamps);
+		}
+	}
+
+	// Write-locks segments first to last, in ascending order so that
+	// writers never deadlock, and keeps each stamp in stamps at the
+	// segment's offset from first.
+	private void lockSegments(long[] stamps, int first, int last) {
+		for (int s = first; s <= last; s++) {
+			stamps[s - first] = locks[s].writeLock();
+		}
+	}
+
+	// Releases segments first to last with the stamps lockSegments kept.
+	private void unlockSegments(long[] stamps, int first, int last) {
+		for (int s = last; s >= first; s--) {
+			locks[s].unlockWrite(stamps[s - first]);
+		}
+	}
+
+	private long[] lockAllSegments() {
+		long[] stamps = new long[locks.length];
+		lockSegments(stamps, 0, locks.length - 1);
+		return stamps;
+	}
+
+	private void unlockAllSegments(long[] stamps) {
+		unlockSegments(stamps, 0, locks.length - 1);
+	}
+
+	// Returns true if growing t may bring a free slot into reach of home.
+	// It cannot when the whole neighborhood holds entries with the key's
+	// own hash, which every table sends to the same home. And a failed
+	// move is rare below a load of about 0.9, so in a table less than half
+	// as full as loadFactor allows, the failure comes from keys whose
+	// hashes cluster, which a larger table would not separate either.
+	private boolean canGrowFor(Table<K, V> t, int home, int hash) {
+		if ((t.numBuckets >= MAX_BUCKETS)
+				|| (numEntries.get() - numOverflowed.get() < t.numBuckets * loadFactor / 2)) {
+			return false;
+		}
+		if (t.hopInfo[home] != -1L) {
+			return true;
+		}
+		for (int i = home; i < home + NEIGHBORHOOD; i++) {
+			if (t.hashes[i] != hash) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// Adds an entry known to be absent to the overflow table. The caller
+	// holds the key's home segments.
+	private void addToOverflow(K key, V value) {
+		overflow.add(key, value);
+		numOverflowed.incrementAndGet();
+		numEntries.incrementAndGet();
+	}
+
+	// Doubles the table unless another thread has already replaced t.
+	private void enlargeHashTable(Table<K, V> t) {
+		long[] stamps = lockAllSegments();
+		try {
+			if (table != t) {
+				return;
+			}
+			if (t.numBuckets >= MAX_BUCKETS) {
+				throw new IllegalStateException("Attempt to enlarge a dictionary " +
+						"beyond its maximum capacity of " + MAX_BUCKETS);
+			}
+			Table<K, V> larger =
+					new Table<>((int) Math.min(t.numBuckets * 2L, MAX_BUCKETS), locks.length);
+			moveEntries(t, larger);
+			table = larger;
+		}
+		finally {
+			unlockAllSegments(stamps);
+		}
+	}
+
+	// Adds every entry of source to the empty table target, which no other
+	// thread can see yet. An entry that finds no room goes to the overflow
+	// table: the target is at most half full, so growing again would not
+	// help it.
+	private void moveEntries(Table<K, V> source, Table<K, V> target) {
+		for (int i = 0; i < source.keys.length; i++) {
+			K key = source.keys[i];
+			if (key != null) {
+				int hash = hashStrategy.hash(key);
+				int home = target.getHomeBucket(hash);
+				int free = -1;
+				int limit = Math.min(home + MAX_SCAN, target.keys.length);
+				for (int j = home; (j < limit) && (free == -1); j++) {
+					if (target.keys[j] == null) {
+						free = j;
+					}
+				}
+				if (free != -1) {
+					free = target.hopInto(home, free);
+				}
+				if (free == -1) {
+					overflow.add(key, source.values[i]);
+					numOverflowed.incrementAndGet();
+				}
+				else {
+					target.keys[free] = key;
+					target.values[free] = source.values[i];
+					target.hashes[free] = hash;
+					target.hopInfo[home] |= 1L << (free - home);
+				}
+			}
+		}
+	}
+
+	//****************************Table**************************
+	// The slots of one generation of the table and the hop bitmaps of its
+	// home buckets. Slots numBuckets and up only hold overflow from the
+	// last neighborhoods.
+	private static final class Table<K, V> {
+		private final K[] keys;
+		private final V[] values;
+		private final int[] hashes;      // Hash of the key in each slot
+		// Bit i of hopInfo[b] is set when slot b + i holds an entry whose
+		// home is b
+		private final long[] hopInfo;
+		private final int numBuckets;
+		private final int numSegments;   // Each at least NEIGHBORHOOD slots
+
+		private Table(int numBucketsIn, int maxSegments) {
+			numBuckets = Math.max(1, numBucketsIn);
+			int length = numBuckets + NEIGHBORHOOD - 1;
+			// The casts are safe because the new arrays contain null entries
+			@SuppressWarnings("unchecked")
+			K[] tempKeys = (K[]) new Object[length];
+			@SuppressWarnings("unchecked")
+			V[] tempValues = (V[]) new Object[length];
+			keys = tempKeys;
+			values = tempValues;
+			hashes = new int[length];
+			hopInfo = new long[numBuckets];
+			numSegments = Math.max(1, Math.min(maxSegments, length / NEIGHBORHOOD));
+		}
+
+		private int getHomeBucket(int hash) {
+			return (int) (((hash & 0xFFFFFFFFL) * numBuckets) >>> 32);
+		}
+
+		// Maps a slot to its segment; ascending slots give ascending
+		// segments, and a neighborhood spans at most two.
+		private int getSegment(int index) {
+			return (int) ((long) index * numSegments / keys.length);
+		}
+
+		// Returns the slot of key in the neighborhood of home, or -1.
+		private int locate(int home, Object key, int hash) {
+			long bits = hopInfo[home];
+			while (bits != 0) {
+				int index = home + Long.numberOfTrailingZeros(bits);
+				if ((hashes[index] == hash) && key.equals(keys[index])) {
+					return index;
+				}
+				bits &= bits - 1;
+			}
+			return -1;
+		}
+
+		// Returns the one slot of home's neighborhood whose stored hash is
+		// hash, -1 if there is none, or -2 if there are several. Compares
+		// no keys, so an optimistic reader may run it.
+		private int findHashMatch(int home, int hash) {
+			int match = -1;
+			long bits = hopInfo[home];
+			while (bits != 0) {
+				int index = home + Long.numberOfTrailingZeros(bits);
+				if (hashes[index] == hash) {
+					match = (match == -1) ? index : -2;
+				}
+				bits &= bits - 1;
+			}
+			return match;
+		}
+
+		// Moves the free slot back into the neighborhood of home by
+		// displacing entries toward their own homes. Returns the free
+		// slot, or -1 if no entry can be moved.
+		private int hopInto(int home, int free) {
+			while (free - home >= NEIGHBORHOOD) {
+				int moved = -1;
+				// Look for the bucket farthest back whose entry before free
+				// can move into free; slots past the last bucket are no home
+				int end = Math.min(free, numBuckets);
+				for (int bucket = free - NEIGHBORHOOD + 1; (bucket < end) && (moved == -1); bucket++) {
+					long bits = hopInfo[bucket];
+					if (bits != 0) {
+						int offset = Long.numberOfTrailingZeros(bits);
+						if (bucket + offset < free) {
+							moved = bucket + offset;
+							keys[free] = keys[moved];
+							values[free] = values[moved];
+							hashes[free] = hashes[moved];
+							hopInfo[bucket] |= 1L << (free - bucket);
+							hopInfo[bucket] &= ~(1L << offset);
+							keys[moved] = null;
+							values[moved] = null;
+						}
+					}
+				}
+				if (moved == -1) {
+					return -1;
+				}
+				free = moved;
+			}
+			return free;
+		}
+	}
+}
@@ -0,0 +1,290 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.stream.Collector;
+
+/**
+   A class that implements a read-only dictionary, a frozen form of
+   HashTableOpenAddressing for tables that are rebuilt now and then and
+   read constantly. It is built once by a Builder, sized for exactly its
+   entries, and never changes: there are no removed entries and no slot
+   states, since a null key marks an empty slot. Every field is final, so
+   a new table can be published by assigning it to a volatile field or
+   an AtomicReference, and readers then need no synchronization at all.
+   Each lookup stops after a bounded number of probes.
+
+   Build one from a parallel stream with toImmutableHashTable, which
+   fills one Builder per thread and merges them.
+*/
+public class ImmutableHashTable<K, V> implements DictionaryInterface<K, V> {
+	private static final double LOAD_FACTOR = 0.75;
+	// Largest array size the VM reliably allows
+	private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+	private final K[] keys;                 // keys[i] is null when slot i is empty
+	private final V[] values;
+	private final int numEntries;
+	private final HashStrategy<? super K> hashStrategy;
+
+	// Copies the entries of the builder's table into slots sized for them.
+	private ImmutableHashTable(HashTableOpenAddressing<K, V> entries,
+			HashStrategy<? super K> hashStrategyIn) {
+		numEntries = entries.getSize();
+		hashStrategy = hashStrategyIn;
+		long capacity = Math.max(2, (long) Math.ceil(numEntries / LOAD_FACTOR));
+		if (capacity > MAX_CAPACITY) {
+			throw new IllegalStateException("Attempt to create a dictionary " +
+					"whose capacity is larger than " + MAX_CAPACITY);
+		}
+		// The casts are safe because the new arrays contain null entries
+		@SuppressWarnings("unchecked")
+		K[] tempKeys = (K[]) new Object[(int) capacity];
+		@SuppressWarnings("unchecked")
+		V[] tempValues = (V[]) new Object[(int) capacity];
+		keys = tempKeys;
+		values = tempValues;
+		Iterator<K> keyIterator = entries.getKeyIterator();
+		Iterator<V> valueIterator = entries.getValueIterator();
+		while (keyIterator.hasNext()) {
+			K key = keyIterator.next();
+			int index = getHashIndex(key);
+			while (keys[index] != null) {
+				index = nextIndex(index);
+			}
+			keys[index] = key;
+			values[index] = valueIterator.next();
+		}
+	}
+
+	/** Task: Creates a builder for a table that uses the default hash
+	 *        strategy.
+	 *  @return an empty builder */
+	public static <K, V> Builder<K, V> builder() {
+		return new Builder<>(HashStrategy.murmur3());
+	}
+
+	/** Task: Creates a builder for a table that uses the given hash strategy.
+	 *  @param hashStrategy  the strategy used to place and find keys
+	 *  @return an empty builder */
+	public static <K, V> Builder<K, V> builder(HashStrategy<? super K> hashStrategy) {
+		if (hashStrategy == null) {
+			throw new IllegalArgumentException("Hash strategy must not be null");
+		}
+		return new Builder<>(hashStrategy);
+	}
+
+	/** Task: Creates a collector that builds a table from the elements of a
+	 *        stream. A parallel stream fills a builder per thread and merges
+	 *        them; as with sequential adds, when two elements have the same
+	 *        key the later one in encounter order wins.
+	 *  @param keyMapper    the function that gives an element's search key
+	 *  @param valueMapper  the function that gives an element's value
+	 *  @return a collector that produces an ImmutableHashTable */
+	public static <T, K, V> Collector<T, ?, ImmutableHashTable<K, V>> toImmutableHashTable(
+			Function<? super T, ? extends K> keyMapper,
+			Function<? super T, ? extends V> valueMapper) {
+		return Collector.of(ImmutableHashTable::<K, V>builder,
+				(builder, element) -> builder.add(keyMapper.apply(element),
+						valueMapper.apply(element)),
+				Builder::addAll,
+				Builder::build);
+	}
+
+	/** Task: Throws an exception, since the dictionary cannot change.
+	 *  @throws UnsupportedOperationException always */
+	@Override
+	public V add(K key, V value) {
+		throw new UnsupportedOperationException();
+	}
+
+	/** Task: Throws an exception, since the dictionary cannot change.
+	 *  @throws UnsupportedOperationException always */
+	@Override
+	public V remove(K key) {
+		throw new UnsupportedOperationException();
+	}
+
+	/** Task: Retrieves the value associated with a given search key.
+	 *  @param key  an object search key of the entry to be retrieved
+	 *  @return either the value that is associated with the search key
+	 *          or null if no such object exists */
+	@Override
+	public V getValue(K key) {
+		int index = getHashIndex(key);
+		K slotKey;
+		while ((slotKey = keys[index]) != null) {
+			if (key.equals(slotKey)) {
+				return values[index];
+			}
+			index = nextIndex(index);
+		}
+		return null;
+	}
+
+	/** Task: Sees whether a specific entry is in the dictionary.
+	 *  @param key  an object search key of the desired entry
+	 *  @return true if key is associated with an entry in the
+	 *          dictionary */
+	@Override
+	public boolean contains(K key) {
+		return getValue(key) != null;
+	}
+
+	/** Task: Creates an iterator that traverses all search keys in the
+	 *        dictionary.
+	 *  @return an iterator that provides sequential access to the search
+	 *          keys in the dictionary */
+	@Override
+	public Iterator<K> getKeyIterator() {
+		return new SlotIterator<>(keys);
+	}
+
+	/** Task: Creates an iterator that traverses all values in the
+	 *        dictionary.
+	 *  @return an iterator that provides sequential access to the values
+	 *          in the dictionary */
+	@Override
+	public Iterator<V> getValueIterator() {
+		return new SlotIterator<>(values);
+	}
+
+	/** Task: Gets the size of the dictionary.
+	 *  @return the number of entries (key-value pairs) currently
+	 *          in the dictionary */
+	@Override
+	public int getSize() {
+		return numEntries;
+	}
+
+	/** Task: Sees whether the dictionary is empty.
+	 *  @return true if the dictionary is empty */
+	@Override
+	public boolean isEmpty() {
+		return numEntries == 0;
+	}
+
+	/** Task: Sees whether the dictionary is full.
+	 *  @return true, since no entry can be added */
+	@Override
+	public boolean isFull() {
+		return true;
+	}
+
+	/** Task: Throws an exception, since the dictionary cannot change.
+	 *  @throws UnsupportedOperationException always */
+	@Override
+	public void clear() {
+		throw new UnsupportedOperationException();
+	}
+
+	// Returns the average number of slots examined to find each entry;
+	// 1.0 means every entry sits in its home slot.
+	double getAverageProbeLength() {
+		long totalProbes = 0;
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != null) {
+				totalProbes += Math.floorMod(i - getHashIndex(keys[i]), keys.length) + 1;
+			}
+		}
+		return (numEntries == 0) ? 0 : (double) totalProbes / numEntries;
+	}
+
+	private int getHashIndex(K key) {
+		int hash = hashStrategy.hash(key);
+		return (int) (((hash & 0xFFFFFFFFL) * keys.length) >>> 32);
+	}
+
+	private int nextIndex(int index) {
+		return (index + 1 == keys.length) ? 0 : index + 1;
+	}
+
+	public String toString() {
+		String result = "";
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != null) {
+				result += keys[i] + " " + values[i] + "\n";
+			}
+		}
+		return result;
+	}
+
+	//****************************Builder**************************
+	/** Collects entries for an ImmutableHashTable. Adding a key that is
+	    already present replaces its value. A builder is not thread-safe,
+	    but it may be reused after build. */
+	public static class Builder<K, V> {
+		private final HashStrategy<? super K> hashStrategy;
+		private final HashTableOpenAddressing<K, V> entries;
+
+		private Builder(HashStrategy<? super K> hashStrategyIn) {
+			hashStrategy = hashStrategyIn;
+			entries = new HashTableOpenAddressing<>(16, LOAD_FACTOR, hashStrategyIn,
+					HashTableOpenAddressing.Probing.LINEAR);
+		}
+
+		/** Task: Adds an entry, replacing the value of an equal key.
+		 *  @param key    an object search key of the new entry
+		 *  @param value  an object associated with the search key
+		 *  @return this builder */
+		public Builder<K, V> add(K key, V value) {
+			if (key == null || value == null) {
+				throw new IllegalArgumentException();
+			}
+			entries.add(key, value);
+			return this;
+		}
+
+		/** Task: Adds every entry of another builder, whose values replace
+		 *        those of equal keys already here.
+		 *  @param other  the builder whose entries are added
+		 *  @return this builder */
+		public Builder<K, V> addAll(Builder<K, V> other) {
+			Iterator<K> keyIterator = other.entries.getKeyIterator();
+			Iterator<V> valueIterator = other.entries.getValueIterator();
+			while (keyIterator.hasNext()) {
+				entries.add(keyIterator.next(), valueIterator.next());
+			}
+			return this;
+		}
+
+		/** Task: Creates a table holding the entries added so far.
+		 *  @return a new ImmutableHashTable */
+		public ImmutableHashTable<K, V> build() {
+			return new ImmutableHashTable<>(entries, hashStrategy);
+		}
+	}
+
+	//****************************SlotIterator**************************
+	// Traverses the non-null elements of keys or values, which occupy the
+	// same slots.
+	private class SlotIterator<T> implements Iterator<T> {
+		private final T[] slots;
+		private int currentIndex;   // Current position in hash table
+		private int numberLeft;     // Number of entries left in iteration
+
+		private SlotIterator(T[] slotsIn) {
+			slots = slotsIn;
+			currentIndex = 0;
+			numberLeft = numEntries;
+		}
+
+		public boolean hasNext() {
+			return numberLeft > 0;
+		}
+
+		public T next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			// Skip empty slots
+			while (keys[currentIndex] == null) {
+				currentIndex++;
+			}
+			numberLeft--;
+			return slots[currentIndex++];
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -0,0 +1,244 @@
+// Generated by PrimitiveHashTableGenerator from PrimitiveHashTable.template;
+// edit the template and rerun the generator instead of editing this file.
+
+/**
+   A class that implements a dictionary from int keys to V values
+   without boxing. Keys and values live in parallel arrays probed
+   linearly, and a removal shifts later entries back, so there are no
+   removed entries. The key 0 marks an empty slot, so an entry whose key
+   is 0 is kept in separate fields. An absent key reads as null.
+*/
+public class IntObjectHashTable<V> {
+	private int numEntries;
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8; // VM array limit
+	private static final double DEFAULT_LOAD_FACTOR = 0.75;
+	// keys[i] is 0 when slot i is empty
+	private int[] keys;
+	private V[] values;
+	// The entry whose key is 0, which cannot be kept in keys
+	private boolean hasZeroKey;
+	private V zeroValue;
+	private double loadFactor;
+	// Number of entries beyond which the table grows
+	private int resizeThreshold;
+
+	public IntObjectHashTable() {
+		this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+	}
+
+	public IntObjectHashTable(int initialCapacity, double loadFactorIn) {
+		if (loadFactorIn <= 0 || loadFactorIn >= 1 || initialCapacity <= 0) {
+			throw new IllegalArgumentException("Initial capacity must be " +
+					"greater than 0 and load factor between 0 and 1");
+		}
+		else if (initialCapacity > MAX_CAPACITY) {
+			throw new IllegalStateException("Attempt to create a dictionary " +
+					"whose capacity is larger than " + MAX_CAPACITY);
+		}
+		loadFactor = loadFactorIn;
+		allocate(Math.max(2, initialCapacity));
+	}
+
+	/** Task: Adds a new entry to the dictionary. If the given search
+	 *        key already exists in the dictionary, replaces the
+	 *        corresponding value.
+	 *  @param key    the search key of the new entry
+	 *  @param value  the value associated with the search key
+	 *  @return either null if the new entry was added to the dictionary or
+	 *          the value that was associated with key if it was replaced */
+	public V add(int key, V value) {
+		if (value == null) {
+			throw new IllegalArgumentException();
+		}
+		V oldValue = null;
+		if (key == 0) {
+			if (hasZeroKey) {
+				oldValue = zeroValue;
+			}
+			else {
+				hasZeroKey = true;
+				numEntries++;
+			}
+			zeroValue = value;
+			return oldValue;
+		}
+		int index = getHashIndex(key, keys.length);
+		while (keys[index] != 0) {
+			if (keys[index] == key) {
+				oldValue = values[index];
+				values[index] = value;
+				return oldValue;
+			}
+			index = nextIndex(index);
+		}
+		keys[index] = key;
+		values[index] = value;
+		numEntries++;
+		if (numEntries > resizeThreshold) {
+			enlargeHashTable();
+		}
+		return oldValue;
+	}
+
+	/** Task: Removes a specific entry from the dictionary.
+	 *  @param key  the search key of the entry to be removed
+	 *  @return either the value that was associated with the search key
+	 *          or null if no such entry exists */
+	public V remove(int key) {
+		V removedValue = null;
+		if (key == 0) {
+			if (hasZeroKey) {
+				removedValue = zeroValue;
+				hasZeroKey = false;
+				zeroValue = null;
+				numEntries--;
+			}
+			return removedValue;
+		}
+		int hole = locate(key);
+		if (hole != -1) {
+			removedValue = values[hole];
+			numEntries--;
+			// Move back each later entry of the cluster whose probe
+			// sequence passes through the hole
+			int index = nextIndex(hole);
+			while (keys[index] != 0) {
+				int home = getHashIndex(keys[index], keys.length);
+				if (Math.floorMod(hole - home, keys.length)
+						< Math.floorMod(index - home, keys.length)) {
+					keys[hole] = keys[index];
+					values[hole] = values[index];
+					hole = index;
+				}
+				index = nextIndex(index);
+			}
+			keys[hole] = 0;
+			values[hole] = null;
+		}
+		return removedValue;
+	}
+
+	/** Task: Retrieves the value associated with a given search key.
+	 *  @param key  the search key of the entry to be retrieved
+	 *  @return either the value that is associated with the search key
+	 *          or null if no such entry exists */
+	public V getValue(int key) {
+		if (key == 0) {
+			return hasZeroKey ? zeroValue : null;
+		}
+		int index = locate(key);
+		return (index != -1) ? values[index] : null;
+	}
+
+	/** Task: Sees whether a specific entry is in the dictionary.
+	 *  @param key  the search key of the desired entry
+	 *  @return true if key is associated with an entry in the
+	 *          dictionary */
+	public boolean contains(int key) {
+		return (key == 0) ? hasZeroKey : locate(key) != -1;
+	}
+
+	/** Task: Gets the search keys in the dictionary.
+	 *  @return a new array holding every search key, in no particular order */
+	public int[] getKeys() {
+		int[] result = new int[numEntries];
+		int count = 0;
+		if (hasZeroKey) {
+			count++;                  // result[0] is already 0
+		}
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != 0) {
+				result[count++] = keys[i];
+			}
+		}
+		return result;
+	}
+
+	/** Task: Gets the size of the dictionary.
+	 *  @return the number of entries (key-value pairs) currently
+	 *          in the dictionary */
+	public int getSize() {
+		return numEntries;
+	}
+
+	/** Task: Sees whether the dictionary is empty.
+	 *  @return true if the dictionary is empty */
+	public boolean isEmpty() {
+		return numEntries == 0;
+	}
+
+	/** Task: Removes all entries from the dictionary. */
+	public void clear() {
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = 0;
+			values[i] = null;
+		}
+		hasZeroKey = false;
+		zeroValue = null;
+		numEntries = 0;
+	}
+
+	// Returns the index of the given nonzero key, or -1 if it is absent.
+	private int locate(int key) {
+		int index = getHashIndex(key, keys.length);
+		while (keys[index] != 0) {
+			if (keys[index] == key) {
+				return index;
+			}
+			index = nextIndex(index);
+		}
+		return -1;
+	}
+
+	private int getHashIndex(int key, int tableSize) {
+		int hash = HashStrategy.fmix32(key);
+		return (int) (((hash & 0xFFFFFFFFL) * tableSize) >>> 32);
+	}
+
+	private int nextIndex(int index) {
+		return (index + 1 == keys.length) ? 0 : index + 1;
+	}
+
+	private void enlargeHashTable() {
+		if (keys.length >= MAX_CAPACITY) {
+			throw new IllegalStateException("Attempt to enlarge a dictionary " +
+					"beyond its maximum capacity of " + MAX_CAPACITY);
+		}
+		int[] oldKeys = keys;
+		V[] oldValues = values;
+		allocate((int) Math.min(keys.length * 2L, MAX_CAPACITY));
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != 0) {
+				int index = getHashIndex(oldKeys[i], keys.length);
+				while (keys[index] != 0) {
+					index = nextIndex(index);
+				}
+				keys[index] = oldKeys[i];
+				values[index] = oldValues[i];
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new int[capacity];
+		// The cast is safe because the new array contains null entries
+		@SuppressWarnings("unchecked")
+		V[] temp = (V[]) new Object[capacity];
+		values = temp;
+		resizeThreshold = (int) Math.min(capacity * loadFactor, capacity - 1);
+	}
+
+	public String toString() {
+		String result = "";
+		if (hasZeroKey) {
+			result += "0 " + zeroValue + "\n";
+		}
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != 0) {
+				result += keys[i] + " " + values[i] + "\n";
+			}
+		}
+		return result;
+	}
+}
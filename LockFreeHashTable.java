@@ -0,0 +1,462 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+   A class that implements a thread-safe dictionary without locks, after
+   Cliff Click's non-blocking hash table. Slots are probed linearly. A
+   key slot is claimed with compareAndSet and keeps its key for the life
+   of its table. A value slot moves between null, a value, TOMBSTONE for
+   a removed entry, and a Prime box while the entry is being copied into
+   a larger table. getValue never blocks and never retries because of
+   another thread.
+
+   When a table fills up, a larger one is hung off it as next. Every
+   thread that runs into the resize helps by copying a chunk of slots,
+   and the last copier makes the new table current. Until then an
+   operation on a key first makes sure that key's slot is copied, then
+   works in the newer table.
+*/
+public class LockFreeHashTable<K, V> implements DictionaryInterface<K, V> {
+	private static final int MIN_CAPACITY = 16;
+	private static final int MAX_CAPACITY = 1 << 30;
+	private static final int COPY_CHUNK = 1024;    // Slots copied per helping call
+	private static final Object TOMBSTONE = new Object();
+	private static final Prime TOMBPRIME = new Prime(TOMBSTONE);
+	private static final Object MATCH_ANY = new Object(); // Expected value for a plain put
+	private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(Object[].class);
+	private static final VarHandle TABLE;
+	private static final VarHandle NEXT;
+	static {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			TABLE = lookup.findVarHandle(LockFreeHashTable.class, "table", Table.class);
+			NEXT = lookup.findVarHandle(Table.class, "next", Table.class);
+		}
+		catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+	private volatile Table table;             // The current table
+	private final LongAdder numEntries = new LongAdder();
+	private final HashStrategy<? super K> hashStrategy;
+
+	public LockFreeHashTable() {
+		this(MIN_CAPACITY);
+	}
+
+	public LockFreeHashTable(int initialCapacity) {
+		this(initialCapacity, HashStrategy.murmur3());
+	}
+
+	public LockFreeHashTable(int initialCapacity, HashStrategy<? super K> hashStrategyIn) {
+		if (initialCapacity <= 0) {
+			throw new IllegalArgumentException("Initial capacity must be " +
+					"greater than 0");
+		}
+		else if (hashStrategyIn == null) {
+			throw new IllegalArgumentException("Hash strategy must not be null");
+		}
+		else if (initialCapacity > MAX_CAPACITY / 2) {
+			throw new IllegalStateException("Attempt to create a dictionary " +
+					"whose capacity is larger than " + MAX_CAPACITY / 2);
+		}
+		hashStrategy = hashStrategyIn;
+		// Keep the table at most half full to begin with
+		table = new Table(Math.max(MIN_CAPACITY, initialCapacity * 2));
+	}
+
+	/** Task: Adds a new entry to the dictionary. If the given search
+	 *        key already exists in the dictionary, replaces the
+	 *        corresponding value.
+	 *  @param key    an object search key of the new entry
+	 *  @param value  an object associated with the search key
+	 *  @return either null if the new entry was added to the dictionary or the
+	 *          value that was associated with key if that value was replaced */
+	@Override
+	public V add(K key, V value) {
+		if (key == null || value == null) {
+			throw new IllegalArgumentException();
+		}
+		Object oldValue = putIfMatch(table, key, hashStrategy.hash(key), value, MATCH_ANY);
+		if ((oldValue == null) || (oldValue == TOMBSTONE)) {
+			numEntries.increment();
+			return null;
+		}
+		return castValue(oldValue);
+	}
+
+	/** Task: Removes a specific entry from the dictionary.
+	 *  @param key  an object search key of the entry to be removed
+	 *  @return either the value that was associated with the search key
+	 *          or null if no such object exists */
+	@Override
+	public V remove(K key) {
+		Object oldValue = putIfMatch(table, key, hashStrategy.hash(key), TOMBSTONE, MATCH_ANY);
+		if ((oldValue == null) || (oldValue == TOMBSTONE)) {
+			return null;
+		}
+		numEntries.decrement();
+		return castValue(oldValue);
+	}
+
+	/** Task: Retrieves the value associated with a given search key.
+	 *  @param key  an object search key of the entry to be retrieved
+	 *  @return either the value that is associated with the search key
+	 *          or null if no such object exists */
+	@Override
+	public V getValue(K key) {
+		int hash = hashStrategy.hash(key);
+		Table t = table;
+		while (t != null) {
+			int length = t.keys.length;
+			int index = getHashIndex(hash, length);
+			Table newer = null;
+			for (int probes = 0; ; probes++) {
+				Object slotKey = SLOTS.getVolatile(t.keys, index);
+				if (slotKey == null) {
+					return null;                  // Never been in this table
+				}
+				if ((slotKey == key) || key.equals(slotKey)) {
+					Object value = SLOTS.getVolatile(t.values, index);
+					if (!(value instanceof Prime)) {
+						return (value == TOMBSTONE) ? null : castValue(value);
+					}
+					// Entry is being copied; finish that, then read the copy
+					newer = copySlotAndCheck(t, index, false);
+					break;
+				}
+				if (probes >= getReprobeLimit(length)) {
+					// A put that got this far went on to the next table
+					newer = t.next;
+					break;
+				}
+				index = (index + 1 == length) ? 0 : index + 1;
+			}
+			t = newer;
+		}
+		return null;
+	}
+
+	/** Task: Sees whether a specific entry is in the dictionary.
+	 *  @param key  an object search key of the desired entry
+	 *  @return true if key is associated with an entry in the
+	 *          dictionary */
+	@Override
+	public boolean contains(K key) {
+		return getValue(key) != null;
+	}
+
+	/** Task: Creates an iterator over a snapshot of the search keys. Any
+	 *        resize in progress is finished first, then the current table
+	 *        is read slot by slot, so entries changed meanwhile may or may
+	 *        not be seen, but the iterator never fails.
+	 *  @return an iterator that provides sequential access to the search
+	 *          keys in the dictionary */
+	@Override
+	public Iterator<K> getKeyIterator() {
+		List<K> snapshot = new ArrayList<>();
+		Table t = finishCopy();
+		for (int i = 0; i < t.keys.length; i++) {
+			Object value = SLOTS.getVolatile(t.values, i);
+			if ((value != null) && (value != TOMBSTONE) && !(value instanceof Prime)) {
+				@SuppressWarnings("unchecked")
+				K key = (K) SLOTS.getVolatile(t.keys, i);
+				snapshot.add(key);
+			}
+		}
+		return snapshot.iterator();
+	}
+
+	/** Task: Creates an iterator over a snapshot of the values, taken the
+	 *        same way as for getKeyIterator.
+	 *  @return an iterator that provides sequential access to the values
+	 *          in the dictionary */
+	@Override
+	public Iterator<V> getValueIterator() {
+		List<V> snapshot = new ArrayList<>();
+		Table t = finishCopy();
+		for (int i = 0; i < t.keys.length; i++) {
+			Object value = SLOTS.getVolatile(t.values, i);
+			if ((value != null) && (value != TOMBSTONE) && !(value instanceof Prime)) {
+				snapshot.add(castValue(value));
+			}
+		}
+		return snapshot.iterator();
+	}
+
+	/** Task: Gets the size of the dictionary. Under concurrent updates the
+	 *        result is only an estimate.
+	 *  @return the number of entries (key-value pairs) currently
+	 *          in the dictionary */
+	@Override
+	public int getSize() {
+		return (int) Math.max(0, numEntries.sum());
+	}
+
+	/** Task: Sees whether the dictionary is empty.
+	 *  @return true if the dictionary is empty */
+	@Override
+	public boolean isEmpty() {
+		return getSize() == 0;
+	}
+
+	/** Task: Sees whether the dictionary is full.
+	 *  @return false, since the table grows as needed */
+	@Override
+	public boolean isFull() {
+		return false;
+	}
+
+	/** Task: Removes all entries from the dictionary by switching to an
+	 *        empty table. Updates that race with clear may be lost. */
+	@Override
+	public void clear() {
+		table = new Table(MIN_CAPACITY);
+		numEntries.reset();
+	}
+
+	// Puts newValue for key in table t or a newer one, where newValue is
+	// TOMBSTONE for a removal. If expected is MATCH_ANY the put always
+	// happens; if it is null, the put only happens if the key has never
+	// had a value in that table, which is how copies avoid overwriting
+	// newer values. Returns the value found, which may be null or
+	// TOMBSTONE.
+	private Object putIfMatch(Table t, Object key, int hash, Object newValue,
+			Object expected) {
+		newTable:
+		while (true) {
+			int length = t.keys.length;
+			int index = getHashIndex(hash, length);
+			int probes = 0;
+			// Find the key's slot, claiming an empty one if necessary
+			while (true) {
+				Object slotKey = SLOTS.getVolatile(t.keys, index);
+				if (slotKey == null) {
+					if (newValue == TOMBSTONE) {
+						return null;              // Removing a key never added
+					}
+					if (SLOTS.compareAndSet(t.keys, index, null, key)) {
+						t.slotsClaimed.incrementAndGet();
+						break;
+					}
+					slotKey = SLOTS.getVolatile(t.keys, index);
+				}
+				if ((slotKey == key) || key.equals(slotKey)) {
+					break;
+				}
+				if (++probes >= getReprobeLimit(length)) {
+					// Too crowded here; put the key in a larger table
+					t = resize(t);
+					if (expected != null) {
+						helpCopy();
+					}
+					continue newTable;
+				}
+				index = (index + 1 == length) ? 0 : index + 1;
+			}
+
+			Object value = SLOTS.getVolatile(t.values, index);
+			if (value == newValue) {
+				return value;
+			}
+			Table newer = t.next;
+			if ((newer == null) && (((value == null) && isTableFull(t))
+					|| (value instanceof Prime))) {
+				newer = resize(t);
+			}
+			if (newer != null) {
+				// A resize is under way: copy this slot, then put in the copy
+				t = copySlotAndCheck(t, index, expected != null);
+				continue newTable;
+			}
+			while (true) {
+				if ((expected != MATCH_ANY) && (value != expected)) {
+					return value;
+				}
+				if (SLOTS.compareAndSet(t.values, index, value, newValue)) {
+					return value;
+				}
+				value = SLOTS.getVolatile(t.values, index);
+				if (value instanceof Prime) {
+					t = copySlotAndCheck(t, index, expected != null);
+					continue newTable;
+				}
+			}
+		}
+	}
+
+	// Returns the table that follows t, creating it if necessary. The new
+	// size depends on how many entries are live, since claimed slots also
+	// include keys that have since been removed.
+	private Table resize(Table t) {
+		Table newer = t.next;
+		if (newer != null) {
+			return newer;
+		}
+		int length = t.keys.length;
+		long live = numEntries.sum();
+		long newLength = length;
+		if (live >= length / 4) {
+			newLength = length * 2L;
+		}
+		if (live >= length / 2) {
+			newLength = length * 4L;
+		}
+		newer = new Table((int) Math.min(newLength, MAX_CAPACITY));
+		if (NEXT.compareAndSet(t, null, newer)) {
+			return newer;
+		}
+		return t.next;                        // Another thread won
+	}
+
+	// Copies slot index of t into t.next, helps with the rest of the copy
+	// if asked, and returns t.next.
+	private Table copySlotAndCheck(Table t, int index, boolean shouldHelp) {
+		Table newer = t.next;
+		if (copySlot(t, index)) {
+			copyCheckAndPromote(t, 1);
+		}
+		if (shouldHelp) {
+			helpCopy();
+		}
+		return newer;
+	}
+
+	// Copies one slot of t into t.next. Returns true if this call did the
+	// copy, so that each slot is counted exactly once.
+	private boolean copySlot(Table t, int index) {
+		// Close an empty key slot so no new key can land in the old table
+		while (SLOTS.getVolatile(t.keys, index) == null) {
+			SLOTS.compareAndSet(t.keys, index, null, TOMBSTONE);
+		}
+		// Box the value so that no update can slip in while it is copied
+		Object value = SLOTS.getVolatile(t.values, index);
+		while (!(value instanceof Prime)) {
+			Prime box = ((value == null) || (value == TOMBSTONE))
+					? TOMBPRIME : new Prime(value);
+			if (SLOTS.compareAndSet(t.values, index, value, box)) {
+				if (box == TOMBPRIME) {
+					return true;                 // Nothing to copy
+				}
+				value = box;
+				break;
+			}
+			value = SLOTS.getVolatile(t.values, index);
+		}
+		if (value == TOMBPRIME) {
+			return false;                        // Already copied
+		}
+		Object key = SLOTS.getVolatile(t.keys, index);
+		boolean copied = putIfMatch(t.next, key, hashStrategy.hash(castKey(key)),
+				((Prime) value).value, null) == null;
+		// Mark the old slot dead
+		while ((value != TOMBPRIME) && !SLOTS.compareAndSet(t.values, index, value, TOMBPRIME)) {
+			value = SLOTS.getVolatile(t.values, index);
+		}
+		return copied;
+	}
+
+	// Adds slots copied by this thread to t's count and, once every slot
+	// is copied, makes t.next the current table if t still is.
+	private void copyCheckAndPromote(Table t, int copied) {
+		int done = (copied > 0) ? t.copyDone.addAndGet(copied) : t.copyDone.get();
+		if ((done == t.keys.length) && (table == t)) {
+			TABLE.compareAndSet(this, t, t.next);
+		}
+	}
+
+	// Copies one chunk of the current table if it is being resized.
+	// Chunks are handed out round-robin, so if a thread stalls in its
+	// chunk, later helpers go over it again; copying a slot twice is
+	// harmless.
+	private void helpCopy() {
+		Table t = table;
+		if (t.next == null) {
+			return;
+		}
+		int length = t.keys.length;
+		int start = (int) (t.copyIndex.getAndAdd(COPY_CHUNK) % length);
+		int end = Math.min(start + COPY_CHUNK, length);
+		int copied = 0;
+		for (int i = start; (i < end) && (t.copyDone.get() < length); i++) {
+			if (copySlot(t, i)) {
+				copied++;
+			}
+		}
+		copyCheckAndPromote(t, copied);
+	}
+
+	// Copies every remaining slot until the current table has no resize
+	// in progress, and returns that table.
+	private Table finishCopy() {
+		while (true) {
+			Table t = table;
+			if (t.next == null) {
+				return t;
+			}
+			int copied = 0;
+			for (int i = 0; i < t.keys.length; i++) {
+				if (copySlot(t, i)) {
+					copied++;
+				}
+			}
+			copyCheckAndPromote(t, copied);
+		}
+	}
+
+	private boolean isTableFull(Table t) {
+		int length = t.keys.length;
+		return t.slotsClaimed.get() >= length - (length >> 2);
+	}
+
+	private static int getReprobeLimit(int length) {
+		return 10 + (length >> 2);
+	}
+
+	private static int getHashIndex(int hash, int length) {
+		return (int) (((hash & 0xFFFFFFFFL) * length) >>> 32);
+	}
+
+	@SuppressWarnings("unchecked")
+	private V castValue(Object value) {
+		return (V) value;
+	}
+
+	@SuppressWarnings("unchecked")
+	private K castKey(Object key) {
+		return (K) key;
+	}
+
+	//****************************Table**************************
+	// One generation of the dictionary's slots.
+	private static final class Table {
+		private final Object[] keys;
+		private final Object[] values;
+		private volatile Table next;          // Larger table being filled, or null
+		private final AtomicInteger slotsClaimed = new AtomicInteger();
+		private final AtomicLong copyIndex = new AtomicLong(); // Next chunk to copy
+		private final AtomicInteger copyDone = new AtomicInteger(); // Slots copied
+
+		private Table(int length) {
+			keys = new Object[length];
+			values = new Object[length];
+		}
+	}
+
+	//****************************Prime**************************
+	// A value that is being copied to the next table; TOMBPRIME marks a
+	// slot whose copy is finished or that had nothing to copy.
+	private static final class Prime {
+		private final Object value;
+
+		private Prime(Object valueIn) {
+			value = valueIn;
+		}
+	}
+}
@@ -0,0 +1,238 @@
+// Generated by PrimitiveHashTableGenerator from PrimitiveHashTable.template;
+// edit the template and rerun the generator instead of editing this file.
+
+/**
+   A class that implements a dictionary from long keys to long values
+   without boxing. Keys and values live in parallel arrays probed
+   linearly, and a removal shifts later entries back, so there are no
+   removed entries. The key 0 marks an empty slot, so an entry whose key
+   is 0 is kept in separate fields. An absent key reads as 0.
+*/
+public class LongLongHashTable {
+	private int numEntries;
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8; // VM array limit
+	private static final double DEFAULT_LOAD_FACTOR = 0.75;
+	// keys[i] is 0 when slot i is empty
+	private long[] keys;
+	private long[] values;
+	// The entry whose key is 0, which cannot be kept in keys
+	private boolean hasZeroKey;
+	private long zeroValue;
+	private double loadFactor;
+	// Number of entries beyond which the table grows
+	private int resizeThreshold;
+
+	public LongLongHashTable() {
+		this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+	}
+
+	public LongLongHashTable(int initialCapacity, double loadFactorIn) {
+		if (loadFactorIn <= 0 || loadFactorIn >= 1 || initialCapacity <= 0) {
+			throw new IllegalArgumentException("Initial capacity must be " +
+					"greater than 0 and load factor between 0 and 1");
+		}
+		else if (initialCapacity > MAX_CAPACITY) {
+			throw new IllegalStateException("Attempt to create a dictionary " +
+					"whose capacity is larger than " + MAX_CAPACITY);
+		}
+		loadFactor = loadFactorIn;
+		allocate(Math.max(2, initialCapacity));
+	}
+
+	/** Task: Adds a new entry to the dictionary. If the given search
+	 *        key already exists in the dictionary, replaces the
+	 *        corresponding value.
+	 *  @param key    the search key of the new entry
+	 *  @param value  the value associated with the search key
+	 *  @return either 0 if the new entry was added to the dictionary or
+	 *          the value that was associated with key if it was replaced */
+	public long add(long key, long value) {
+		long oldValue = 0;
+		if (key == 0) {
+			if (hasZeroKey) {
+				oldValue = zeroValue;
+			}
+			else {
+				hasZeroKey = true;
+				numEntries++;
+			}
+			zeroValue = value;
+			return oldValue;
+		}
+		int index = getHashIndex(key, keys.length);
+		while (keys[index] != 0) {
+			if (keys[index] == key) {
+				oldValue = values[index];
+				values[index] = value;
+				return oldValue;
+			}
+			index = nextIndex(index);
+		}
+		keys[index] = key;
+		values[index] = value;
+		numEntries++;
+		if (numEntries > resizeThreshold) {
+			enlargeHashTable();
+		}
+		return oldValue;
+	}
+
+	/** Task: Removes a specific entry from the dictionary.
+	 *  @param key  the search key of the entry to be removed
+	 *  @return either the value that was associated with the search key
+	 *          or 0 if no such entry exists */
+	public long remove(long key) {
+		long removedValue = 0;
+		if (key == 0) {
+			if (hasZeroKey) {
+				removedValue = zeroValue;
+				hasZeroKey = false;
+				zeroValue = 0;
+				numEntries--;
+			}
+			return removedValue;
+		}
+		int hole = locate(key);
+		if (hole != -1) {
+			removedValue = values[hole];
+			numEntries--;
+			// Move back each later entry of the cluster whose probe
+			// sequence passes through the hole
+			int index = nextIndex(hole);
+			while (keys[index] != 0) {
+				int home = getHashIndex(keys[index], keys.length);
+				if (Math.floorMod(hole - home, keys.length)
+						< Math.floorMod(index - home, keys.length)) {
+					keys[hole] = keys[index];
+					values[hole] = values[index];
+					hole = index;
+				}
+				index = nextIndex(index);
+			}
+			keys[hole] = 0;
+			values[hole] = 0;
+		}
+		return removedValue;
+	}
+
+	/** Task: Retrieves the value associated with a given search key.
+	 *  @param key  the search key of the entry to be retrieved
+	 *  @return either the value that is associated with the search key
+	 *          or 0 if no such entry exists */
+	public long getValue(long key) {
+		if (key == 0) {
+			return hasZeroKey ? zeroValue : 0;
+		}
+		int index = locate(key);
+		return (index != -1) ? values[index] : 0;
+	}
+
+	/** Task: Sees whether a specific entry is in the dictionary.
+	 *  @param key  the search key of the desired entry
+	 *  @return true if key is associated with an entry in the
+	 *          dictionary */
+	public boolean contains(long key) {
+		return (key == 0) ? hasZeroKey : locate(key) != -1;
+	}
+
+	/** Task: Gets the search keys in the dictionary.
+	 *  @return a new array holding every search key, in no particular order */
+	public long[] getKeys() {
+		long[] result = new long[numEntries];
+		int count = 0;
+		if (hasZeroKey) {
+			count++;                  // result[0] is already 0
+		}
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != 0) {
+				result[count++] = keys[i];
+			}
+		}
+		return result;
+	}
+
+	/** Task: Gets the size of the dictionary.
+	 *  @return the number of entries (key-value pairs) currently
+	 *          in the dictionary */
+	public int getSize() {
+		return numEntries;
+	}
+
+	/** Task: Sees whether the dictionary is empty.
+	 *  @return true if the dictionary is empty */
+	public boolean isEmpty() {
+		return numEntries == 0;
+	}
+
+	/** Task: Removes all entries from the dictionary. */
+	public void clear() {
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = 0;
+			values[i] = 0;
+		}
+		hasZeroKey = false;
+		zeroValue = 0;
+		numEntries = 0;
+	}
+
+	// Returns the index of the given nonzero key, or -1 if it is absent.
+	private int locate(long key) {
+		int index = getHashIndex(key, keys.length);
+		while (keys[index] != 0) {
+			if (keys[index] == key) {
+				return index;
+			}
+			index = nextIndex(index);
+		}
+		return -1;
+	}
+
+	private int getHashIndex(long key, int tableSize) {
+		int hash = HashStrategy.mix64(key);
+		return (int) (((hash & 0xFFFFFFFFL) * tableSize) >>> 32);
+	}
+
+	private int nextIndex(int index) {
+		return (index + 1 == keys.length) ? 0 : index + 1;
+	}
+
+	private void enlargeHashTable() {
+		if (keys.length >= MAX_CAPACITY) {
+			throw new IllegalStateException("Attempt to enlarge a dictionary " +
+					"beyond its maximum capacity of " + MAX_CAPACITY);
+		}
+		long[] oldKeys = keys;
+		long[] oldValues = values;
+		allocate((int) Math.min(keys.length * 2L, MAX_CAPACITY));
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != 0) {
+				int index = getHashIndex(oldKeys[i], keys.length);
+				while (keys[index] != 0) {
+					index = nextIndex(index);
+				}
+				keys[index] = oldKeys[i];
+				values[index] = oldValues[i];
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new long[capacity];
+		resizeThreshold = (int) Math.min(capacity * loadFactor, capacity - 1);
+	}
+
+	public String toString() {
+		String result = "";
+		if (hasZeroKey) {
+			result += "0 " + zeroValue + "\n";
+		}
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != 0) {
+				result += keys[i] + " " + values[i] + "\n";
+			}
+		}
+		return result;
+	}
+}
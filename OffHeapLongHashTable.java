@@ -0,0 +1,270 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+   A class that implements a dictionary from long keys to long values
+   whose entries live outside the Java heap, in direct byte buffers, so
+   that even hundreds of millions of entries add no objects for the
+   garbage collector to trace. Each slot is a fixed 16-byte record, a key
+   followed by its value, probed linearly; removals shift later records
+   back, so there are no removed records. The key 0 marks an empty slot,
+   so an entry whose key is 0 is kept in separate fields. An absent key
+   reads as 0.
+
+   A single buffer holds at most 2 GB, so the slots are spread over
+   chunks of CHUNK_SLOTS records. Call close() when done with the table;
+   the memory is returned once the buffers are collected, since direct
+   buffers cannot be freed explicitly before the Foreign Memory API.
+*/
+public class OffHeapLongHashTable implements AutoCloseable {
+	private int numEntries;
+	private static final int DEFAULT_CAPACITY = 1 << 10;
+	private static final int MAX_CAPACITY = 1 << 30;
+	private static final double DEFAULT_LOAD_FACTOR = 0.75;
+	private static final int RECORD_SIZE = 16;      // Key and value, 8 bytes each
+	private static final int CHUNK_SHIFT = 22;
+	private static final int CHUNK_SLOTS = 1 << CHUNK_SHIFT; // 64 MB per chunk
+	private ByteBuffer[] chunks;                     // null once closed
+	private int capacity;                            // Number of slots
+	// The entry whose key is 0, which cannot be kept in a record
+	private boolean hasZeroKey;
+	private long zeroValue;
+	private double loadFactor;
+	// Number of entries beyond which the table grows
+	private int resizeThreshold;
+
+	public OffHeapLongHashTable() {
+		this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+	}
+
+	public OffHeapLongHashTable(int initialCapacity, double loadFactorIn) {
+		if (loadFactorIn <= 0 || loadFactorIn >= 1 || initialCapacity <= 0) {
+			throw new IllegalArgumentException("Initial capacity must be " +
+					"greater than 0 and load factor between 0 and 1");
+		}
+		else if (initialCapacity > MAX_CAPACITY) {
+			throw new IllegalStateException("Attempt to create a dictionary " +
+					"whose capacity is larger than " + MAX_CAPACITY);
+		}
+		loadFactor = loadFactorIn;
+		allocate(Math.max(2, initialCapacity));
+	}
+
+	/** Task: Adds a new entry to the dictionary. If the given search
+	 *        key already exists in the dictionary, replaces the
+	 *        corresponding value.
+	 *  @param key    the search key of the new entry
+	 *  @param value  the value associated with the search key
+	 *  @return either 0 if the new entry was added to the dictionary or
+	 *          the value that was associated with key if it was replaced */
+	public long add(long key, long value) {
+		checkOpen();
+		long oldValue = 0;
+		if (key == 0) {
+			if (hasZeroKey) {
+				oldValue = zeroValue;
+			}
+			else {
+				hasZeroKey = true;
+				numEntries++;
+			}
+			zeroValue = value;
+			return oldValue;
+		}
+		int index = getHashIndex(key, capacity);
+		long slotKey;
+		while ((slotKey = getKey(index)) != 0) {
+			if (slotKey == key) {
+				oldValue = getValueAt(index);
+				setRecord(index, key, value);
+				return oldValue;
+			}
+			index = nextIndex(index);
+		}
+		setRecord(index, key, value);
+		numEntries++;
+		if (numEntries > resizeThreshold) {
+			enlargeHashTable();
+		}
+		return oldValue;
+	}
+
+	/** Task: Removes a specific entry from the dictionary.
+	 *  @param key  the search key of the entry to be removed
+	 *  @return either the value that was associated with the search key
+	 *          or 0 if no such entry exists */
+	public long remove(long key) {
+		checkOpen();
+		long removedValue = 0;
+		if (key == 0) {
+			if (hasZeroKey) {
+				removedValue = zeroValue;
+				hasZeroKey = false;
+				zeroValue = 0;
+				numEntries--;
+			}
+			return removedValue;
+		}
+		int hole = locate(key);
+		if (hole != -1) {
+			removedValue = getValueAt(hole);
+			numEntries--;
+			// Move back each later record of the cluster whose probe
+			// sequence passes through the hole
+			int index = nextIndex(hole);
+			long slotKey;
+			while ((slotKey = getKey(index)) != 0) {
+				int home = getHashIndex(slotKey, capacity);
+				if (Math.floorMod(hole - home, capacity)
+						< Math.floorMod(index - home, capacity)) {
+					setRecord(hole, slotKey, getValueAt(index));
+					hole = index;
+				}
+				index = nextIndex(index);
+			}
+			setRecord(hole, 0, 0);
+		}
+		return removedValue;
+	}
+
+	/** Task: Retrieves the value associated with a given search key.
+	 *  @param key  the search key of the entry to be retrieved
+	 *  @return either the value that is associated with the search key
+	 *          or 0 if no such entry exists */
+	public long getValue(long key) {
+		checkOpen();
+		if (key == 0) {
+			return hasZeroKey ? zeroValue : 0;
+		}
+		int index = locate(key);
+		return (index != -1) ? getValueAt(index) : 0;
+	}
+
+	/** Task: Sees whether a specific entry is in the dictionary.
+	 *  @param key  the search key of the desired entry
+	 *  @return true if key is associated with an entry in the
+	 *          dictionary */
+	public boolean contains(long key) {
+		checkOpen();
+		return (key == 0) ? hasZeroKey : locate(key) != -1;
+	}
+
+	/** Task: Gets the size of the dictionary.
+	 *  @return the number of entries (key-value pairs) currently
+	 *          in the dictionary */
+	public int getSize() {
+		return numEntries;
+	}
+
+	/** Task: Sees whether the dictionary is empty.
+	 *  @return true if the dictionary is empty */
+	public boolean isEmpty() {
+		return numEntries == 0;
+	}
+
+	/** Task: Removes all entries from the dictionary. */
+	public void clear() {
+		checkOpen();
+		for (int i = 0; i < capacity; i++) {
+			setRecord(i, 0, 0);
+		}
+		hasZeroKey = false;
+		zeroValue = 0;
+		numEntries = 0;
+	}
+
+	/** Task: Releases the table's off-heap memory. Any later operation
+	 *        other than getSize, isEmpty or close throws
+	 *        IllegalStateException. */
+	@Override
+	public void close() {
+		chunks = null;
+		capacity = 0;
+		hasZeroKey = false;
+		numEntries = 0;
+	}
+
+	/** Task: Gets the number of bytes of off-heap memory the table holds.
+	 *  @return the total size of the table's buffers */
+	public long getOffHeapBytes() {
+		return (long) capacity * RECORD_SIZE;
+	}
+
+	// Returns the index of the given nonzero key, or -1 if it is absent.
+	private int locate(long key) {
+		int index = getHashIndex(key, capacity);
+		long slotKey;
+		while ((slotKey = getKey(index)) != 0) {
+			if (slotKey == key) {
+				return index;
+			}
+			index = nextIndex(index);
+		}
+		return -1;
+	}
+
+	private long getKey(int index) {
+		return chunks[index >>> CHUNK_SHIFT].getLong((index & (CHUNK_SLOTS - 1)) * RECORD_SIZE);
+	}
+
+	private long getValueAt(int index) {
+		return chunks[index >>> CHUNK_SHIFT].getLong((index & (CHUNK_SLOTS - 1)) * RECORD_SIZE + 8);
+	}
+
+	private void setRecord(int index, long key, long value) {
+		ByteBuffer chunk = chunks[index >>> CHUNK_SHIFT];
+		int offset = (index & (CHUNK_SLOTS - 1)) * RECORD_SIZE;
+		chunk.putLong(offset, key);
+		chunk.putLong(offset + 8, value);
+	}
+
+	private int getHashIndex(long key, int tableSize) {
+		int hash = HashStrategy.mix64(key);
+		return (int) (((hash & 0xFFFFFFFFL) * tableSize) >>> 32);
+	}
+
+	private int nextIndex(int index) {
+		return (index + 1 == capacity) ? 0 : index + 1;
+	}
+
+	private void checkOpen() {
+		if (chunks == null) {
+			throw new IllegalStateException("Dictionary has been closed");
+		}
+	}
+
+	private void enlargeHashTable() {
+		if (capacity >= MAX_CAPACITY) {
+			throw new IllegalStateException("Attempt to enlarge a dictionary " +
+					"beyond its maximum capacity of " + MAX_CAPACITY);
+		}
+		ByteBuffer[] oldChunks = chunks;
+		int oldCapacity = capacity;
+		allocate((int) Math.min(capacity * 2L, MAX_CAPACITY));
+		for (int i = 0; i < oldCapacity; i++) {
+			ByteBuffer chunk = oldChunks[i >>> CHUNK_SHIFT];
+			int offset = (i & (CHUNK_SLOTS - 1)) * RECORD_SIZE;
+			long key = chunk.getLong(offset);
+			if (key != 0) {
+				int index = getHashIndex(key, capacity);
+				while (getKey(index) != 0) {
+					index = nextIndex(index);
+				}
+				setRecord(index, key, chunk.getLong(offset + 8));
+			}
+		}
+	}
+
+	// Allocates zero-filled chunks for the given number of slots.
+	private void allocate(int slots) {
+		int numChunks = (int) (((long) slots + CHUNK_SLOTS - 1) >>> CHUNK_SHIFT);
+		chunks = new ByteBuffer[numChunks];
+		for (int c = 0; c < numChunks; c++) {
+			int chunkSlots = Math.min(CHUNK_SLOTS, slots - c * CHUNK_SLOTS);
+			chunks[c] = ByteBuffer.allocateDirect(chunkSlots * RECORD_SIZE)
+					.order(ByteOrder.nativeOrder());
+		}
+		capacity = slots;
+		resizeThreshold = (int) Math.min(slots * loadFactor, slots - 1);
+	}
+}
@@ -0,0 +1,278 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+   A class that implements a read-only dictionary over a fixed set of keys
+   with a minimal perfect hash, built in the style of CHD (hash, displace
+   and compress). It is made by HashTableOpenAddressing.freeze(). Its
+   table has exactly one slot per entry, and getValue examines exactly
+   one slot.
+
+   Keys are split by hash into buckets of about BUCKET_SIZE keys. The
+   largest buckets are placed first. For each bucket, seeds 0, 1, 2, ...
+   are tried until the seeded hash sends every key of the bucket to a
+   distinct free slot. Only the winning seed is kept. A lookup hashes the
+   key, reads its bucket's seed, and goes straight to the key's slot.
+
+   Keys whose 32-bit hashes are equal can never be separated by any seed.
+   The first such key gets a slot, and the rest go to a small overflow
+   table that is only searched when a lookup misses.
+*/
+public class PerfectHashTable<K, V> implements DictionaryInterface<K, V> {
+	private static final int BUCKET_SIZE = 4;    // Average keys per bucket
+	private final K[] keys;                       // One slot per entry
+	private final V[] values;
+	private final int[] seeds;                    // Displacement seed of each bucket
+	private final HashStrategy<? super K> hashStrategy;
+	// Entries whose hash equals that of an entry in keys, or null if none
+	private final HashTableOpenAddressing<K, V> overflow;
+
+	// Builds the table for the given distinct keys and their values.
+	PerfectHashTable(K[] keysIn, V[] valuesIn, HashStrategy<? super K> hashStrategyIn) {
+		hashStrategy = hashStrategyIn;
+		int total = keysIn.length;
+		seeds = new int[Math.max(1, (total + BUCKET_SIZE - 1) / BUCKET_SIZE)];
+
+		// Group the keys by bucket, as ranges of members
+		int[] hashes = new int[total];
+		int[] bucketStart = new int[seeds.length + 1];
+		for (int i = 0; i < total; i++) {
+			hashes[i] = hashStrategy.hash(keysIn[i]);
+			bucketStart[getBucket(hashes[i]) + 1]++;
+		}
+		int maxBucketSize = 0;
+		for (int b = 0; b < seeds.length; b++) {
+			maxBucketSize = Math.max(maxBucketSize, bucketStart[b + 1]);
+			bucketStart[b + 1] += bucketStart[b];
+		}
+		int[] members = new int[total];
+		int[] next = Arrays.copyOf(bucketStart, seeds.length);
+		for (int i = 0; i < total; i++) {
+			members[next[getBucket(hashes[i])]++] = i;
+		}
+
+		// Equal hashes land in the same bucket; keep one, set the rest aside
+		HashTableOpenAddressing<K, V> extra = null;
+		int numPlaced = total;
+		for (int b = 0; b < seeds.length; b++) {
+			for (int j = bucketStart[b] + 1; j < bucketStart[b + 1]; j++) {
+				for (int k = bucketStart[b]; k < j; k++) {
+					if ((members[k] != -1) && (hashes[members[k]] == hashes[members[j]])) {
+						if (extra == null) {
+							extra = new HashTableOpenAddressing<>(5, 0.75, hashStrategy);
+						}
+						extra.add(keysIn[members[j]], valuesIn[members[j]]);
+						members[j] = -1;
+						numPlaced--;
+						break;
+					}
+				}
+			}
+		}
+		overflow = extra;
+
+		// The casts are safe because the new arrays contain null entries
+		@SuppressWarnings("unchecked")
+		K[] tempKeys = (K[]) new Object[Math.max(1, numPlaced)];
+		@SuppressWarnings("unchecked")
+		V[] tempValues = (V[]) new Object[Math.max(1, numPlaced)];
+		keys = tempKeys;
+		values = tempValues;
+
+		// Order the buckets by size, largest first, with a counting sort
+		int[] sizeStart = new int[maxBucketSize + 2];
+		for (int b = 0; b < seeds.length; b++) {
+			sizeStart[maxBucketSize - (bucketStart[b + 1] - bucketStart[b]) + 1]++;
+		}
+		for (int s = 1; s < sizeStart.length; s++) {
+			sizeStart[s] += sizeStart[s - 1];
+		}
+		int[] order = new int[seeds.length];
+		for (int b = 0; b < seeds.length; b++) {
+			order[sizeStart[maxBucketSize - (bucketStart[b + 1] - bucketStart[b])]++] = b;
+		}
+
+		// Find a seed for each bucket that sends its keys to free slots
+		long[] taken = new long[(keys.length + 63) >>> 6];
+		int[] slots = new int[maxBucketSize];
+		for (int b : order) {
+			int seed = 0;
+			int count;
+			do {
+				count = 0;
+				for (int j = bucketStart[b]; j < bucketStart[b + 1]; j++) {
+					if (members[j] == -1) {
+						continue;
+					}
+					int slot = getSlot(hashes[members[j]], seed);
+					if (((taken[slot >>> 6] & (1L << slot)) != 0)
+							|| contains(slots, count, slot)) {
+						count = -1;
+						break;
+					}
+					slots[count++] = slot;
+				}
+				if (count == -1) {
+					if (seed == Integer.MAX_VALUE) {
+						throw new IllegalStateException("No displacement found for bucket " + b);
+					}
+					seed++;
+				}
+			} while (count == -1);
+			seeds[b] = seed;
+			count = 0;
+			for (int j = bucketStart[b]; j < bucketStart[b + 1]; j++) {
+				if (members[j] != -1) {
+					int slot = slots[count++];
+					taken[slot >>> 6] |= 1L << slot;
+					keys[slot] = keysIn[members[j]];
+					values[slot] = valuesIn[members[j]];
+				}
+			}
+		}
+	}
+
+	/** Task: Throws an exception, since the dictionary cannot change.
+	 *  @throws UnsupportedOperationException always */
+	@Override
+	public V add(K key, V value) {
+		throw new UnsupportedOperationException();
+	}
+
+	/** Task: Throws an exception, since the dictionary cannot change.
+	 *  @throws UnsupportedOperationException always */
+	@Override
+	public V remove(K key) {
+		throw new UnsupportedOperationException();
+	}
+
+	/** Task: Retrieves the value associated with a given search key.
+	 *  @param key  an object search key of the entry to be retrieved
+	 *  @return either the value that is associated with the search key
+	 *          or null if no such object exists */
+	@Override
+	public V getValue(K key) {
+		int hash = hashStrategy.hash(key);
+		int slot = getSlot(hash, seeds[getBucket(hash)]);
+		if (key.equals(keys[slot])) {
+			return values[slot];
+		}
+		return (overflow == null) ? null : overflow.getValue(key);
+	}
+
+	/** Task: Sees whether a specific entry is in the dictionary.
+	 *  @param key  an object search key of the desired entry
+	 *  @return true if key is associated with an entry in the
+	 *          dictionary */
+	@Override
+	public boolean contains(K key) {
+		return getValue(key) != null;
+	}
+
+	/** Task: Creates an iterator that traverses all search keys in the
+	 *        dictionary.
+	 *  @return an iterator that provides sequential access to the search
+	 *          keys in the dictionary */
+	@Override
+	public Iterator<K> getKeyIterator() {
+		return new EntryIterator<>(keys,
+				(overflow == null) ? null : overflow.getKeyIterator());
+	}
+
+	/** Task: Creates an iterator that traverses all values in the
+	 *        dictionary.
+	 *  @return an iterator that provides sequential access to the values
+	 *          in the dictionary */
+	@Override
+	public Iterator<V> getValueIterator() {
+		return new EntryIterator<>(values,
+				(overflow == null) ? null : overflow.getValueIterator());
+	}
+
+	/** Task: Gets the size of the dictionary.
+	 *  @return the number of entries (key-value pairs) currently
+	 *          in the dictionary */
+	@Override
+	public int getSize() {
+		return getNumPlaced() + ((overflow == null) ? 0 : overflow.getSize());
+	}
+
+	/** Task: Sees whether the dictionary is empty.
+	 *  @return true if the dictionary is empty */
+	@Override
+	public boolean isEmpty() {
+		return getSize() == 0;
+	}
+
+	/** Task: Sees whether the dictionary is full.
+	 *  @return true, since no entry can be added */
+	@Override
+	public boolean isFull() {
+		return true;
+	}
+
+	/** Task: Throws an exception, since the dictionary cannot change.
+	 *  @throws UnsupportedOperationException always */
+	@Override
+	public void clear() {
+		throw new UnsupportedOperationException();
+	}
+
+	// An empty dictionary still has one (empty) slot.
+	private int getNumPlaced() {
+		return (keys[0] == null) ? 0 : keys.length;
+	}
+
+	private int getBucket(int hash) {
+		return (int) (((hash & 0xFFFFFFFFL) * seeds.length) >>> 32);
+	}
+
+	// Rehashes the key's hash with the seed and reduces it to a slot.
+	private int getSlot(int hash, int seed) {
+		int mixed = HashStrategy.mix64(((long) seed << 32) | (hash & 0xFFFFFFFFL));
+		return (int) (((mixed & 0xFFFFFFFFL) * keys.length) >>> 32);
+	}
+
+	private static boolean contains(int[] slots, int count, int slot) {
+		for (int i = 0; i < count; i++) {
+			if (slots[i] == slot) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	//****************************EntryIterator**************************
+	// Traverses the slots of keys or values, then the overflow table.
+	private class EntryIterator<T> implements Iterator<T> {
+		private final T[] slots;
+		private final Iterator<T> overflowIterator; // null if no overflow
+		private int currentIndex;   // Current position in slots
+
+		private EntryIterator(T[] slotsIn, Iterator<T> overflowIteratorIn) {
+			slots = slotsIn;
+			overflowIterator = overflowIteratorIn;
+			currentIndex = 0;
+		}
+
+		public boolean hasNext() {
+			return (currentIndex < getNumPlaced())
+					|| ((overflowIterator != null) && overflowIterator.hasNext());
+		}
+
+		public T next() {
+			if (currentIndex < getNumPlaced()) {
+				return slots[currentIndex++];
+			}
+			else if ((overflowIterator != null) && overflowIterator.hasNext()) {
+				return overflowIterator.next();
+			}
+			throw new NoSuchElementException();
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -0,0 +1,72 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+   Generates the primitive-keyed dictionaries (IntIntHashTable and its
+   siblings) from PrimitiveHashTable.template, so that all of them share
+   one copy of the open-addressing code.
+   Run from the source directory with: java PrimitiveHashTableGenerator
+*/
+public class PrimitiveHashTableGenerator {
+	private static final String TEMPLATE = "PrimitiveHashTable.template";
+
+	// Class name, key type, value type, type parameters, value when a key
+	// is absent, and the function that mixes a key into a 32-bit hash
+	private static final String[][] VARIANTS = {
+		{"IntIntHashTable", "int", "int", "", "0", "HashStrategy.fmix32"},
+		{"IntObjectHashTable", "int", "V", "<V>", "null", "HashStrategy.fmix32"},
+		{"LongLongHashTable", "long", "long", "", "0", "HashStrategy.mix64"},
+		{"LongObjectHashTable", "long", "V", "<V>", "null", "HashStrategy.mix64"},
+	};
+
+	public static void main(String[] args) throws IOException {
+		Path directory = Paths.get(args.length > 0 ? args[0] : ".");
+		String template = new String(Files.readAllBytes(directory.resolve(TEMPLATE)),
+				StandardCharsets.UTF_8);
+		for (String[] variant : VARIANTS) {
+			boolean objectValues = !variant[4].equals("0");
+			String source = selectBlocks(template, objectValues)
+					.replace("$CLASS$", variant[0])
+					.replace("$KEY$", variant[1])
+					.replace("$VALUE$", variant[2])
+					.replace("$TYPE_PARAMS$", variant[3])
+					.replace("$NO_VALUE$", variant[4])
+					.replace("$HASH$", variant[5]);
+			Path file = directory.resolve(variant[0] + ".java");
+			Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+			System.out.println("Wrote " + file);
+		}
+	}
+
+	// Keeps the lines between //#if OBJECT_VALUES and //#else (or //#endif)
+	// for object-valued variants and the lines after //#else otherwise,
+	// dropping the marker lines themselves.
+	private static String selectBlocks(String template, boolean objectValues) {
+		StringBuilder result = new StringBuilder();
+		boolean inBlock = false;
+		boolean keep = true;
+		for (String line : template.split("\n", -1)) {
+			String marker = line.trim();
+			if (marker.equals("//#if OBJECT_VALUES")) {
+				inBlock = true;
+				keep = objectValues;
+			}
+			else if (inBlock && marker.equals("//#else")) {
+				keep = !objectValues;
+			}
+			else if (inBlock && marker.equals("//#endif")) {
+				inBlock = false;
+				keep = true;
+			}
+			else if (keep) {
+				result.append(line).append('\n');
+			}
+		}
+		// split kept the text after the final newline; do not add another
+		result.setLength(result.length() - 1);
+		return result.toString();
+	}
+}
@@ -0,0 +1,333 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+   A class that implements a dictionary by using Robin Hood hashing: open
+   addressing with linear probing in which a new entry takes the slot of
+   any entry that sits closer to its own home slot, and that entry moves
+   on instead. Probe lengths stay short and even at high load, a search
+   stops as soon as it passes entries closer to home than its key would
+   be, and removal shifts entries back so nothing is flagged as removed.
+*/
+public class RobinHoodHashTable<K, V> implements DictionaryInterface<K, V> {
+	private int numEntries;
+	private static final int DEFAULT_CAPACITY = 8;
+	private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8; // VM array limit
+	private static final double DEFAULT_LOAD_FACTOR = 0.9;
+	private K[] keys;
+	private V[] values;
+	private int[] distances;   // 1 + distance from home slot; 0 if empty
+	private double loadFactor;
+	private HashStrategy<? super K> hashStrategy;
+
+	public RobinHoodHashTable() {
+		this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+	}
+
+	public RobinHoodHashTable(int initialCapacity, double loadFactorIn) {
+		this(initialCapacity, loadFactorIn, HashStrategy.murmur3());
+	}
+
+	public RobinHoodHashTable(int initialCapacity, double loadFactorIn,
+			HashStrategy<? super K> hashStrategyIn) {
+		if (loadFactorIn <= 0 || loadFactorIn >= 1 || initialCapacity <= 0) {
+			throw new IllegalArgumentException("Initial capacity must be " +
+					"greater than 0 and load factor between 0 and 1");
+		}
+		else if (hashStrategyIn == null) {
+			throw new IllegalArgumentException("Hash strategy must not be null");
+		}
+		else if (initialCapacity > MAX_CAPACITY) {
+			throw new IllegalStateException("Attempt to create a dictionary " +
+					"whose capacity is larger than " + MAX_CAPACITY);
+		}
+		numEntries = 0;
+		loadFactor = loadFactorIn;
+		hashStrategy = hashStrategyIn;
+		allocate(initialCapacity);
+	}
+
+	/** Task: Adds a new entry to the dictionary. If the given search
+	 *        key already exists in the dictionary, replaces the
+	 *        corresponding value.
+	 *  @param keyIn    an object search key of the new entry
+	 *  @param valueIn  an object associated with the search key
+	 *  @return either null if the new entry was added to the dictionary or the
+	 *          value that was associated with key if that value was replaced */
+	@Override
+	public V add(K keyIn, V valueIn) {
+		if (keyIn == null || valueIn == null) {
+			throw new IllegalArgumentException();
+		}
+		int index = locate(keyIn);
+		if (index != -1) {
+			V oldValue = values[index];
+			values[index] = valueIn;
+			return oldValue;
+		}
+		if (numEntries + 1 > loadFactor * keys.length) {
+			enlargeHashTable();
+		}
+		insert(keyIn, valueIn);
+		numEntries++;
+		return null;
+	}
+
+	/** Task: Removes a specific entry from the dictionary.
+	 *  @param key  an object search key of the entry to be removed
+	 *  @return either the value that was associated with the search key
+	 *          or null if no such object exists */
+	@Override
+	public V remove(K key) {
+		int index = locate(key);
+		if (index == -1) {
+			return null;
+		}
+		V removedValue = values[index];
+		// Shift the rest of the cluster back one slot until an entry that
+		// is already home, or an empty slot, is reached
+		int next = nextIndex(index);
+		while (distances[next] > 1) {
+			keys[index] = keys[next];
+			values[index] = values[next];
+			distances[index] = distances[next] - 1;
+			index = next;
+			next = nextIndex(next);
+		}
+		keys[index] = null;
+		values[index] = null;
+		distances[index] = 0;
+		numEntries--;
+		return removedValue;
+	}
+
+	/** Task: Retrieves the value associated with a given search key.
+	 *  @param key  an object search key of the entry to be retrieved
+	 *  @return either the value that is associated with the search key
+	 *          or null if no such object exists */
+	@Override
+	public V getValue(K key) {
+		int index = locate(key);
+		return (index != -1) ? values[index] : null;
+	}
+
+	/** Task: Sees whether a specific entry is in the dictionary.
+	 *  @param key  an object search key of the desired entry
+	 *  @return true if key is associated with an entry in the
+	 *          dictionary */
+	@Override
+	public boolean contains(K key) {
+		return locate(key) != -1;
+	}
+
+	/** Task: Creates an iterator that traverses all search keys in the
+	 *        dictionary.
+	 *  @return an iterator that provides sequential access to the search
+	 *          keys in the dictionary */
+	@Override
+	public Iterator<K> getKeyIterator() {
+		return new KeyIterator();
+	}
+
+	/** Task: Creates an iterator that traverses all values in the
+	 *        dictionary.
+	 *  @return an iterator that provides sequential access to the values
+	 *          in the dictionary */
+	@Override
+	public Iterator<V> getValueIterator() {
+		return new ValueIterator();
+	}
+
+	/** Task: Gets the size of the dictionary.
+	 *  @return the number of entries (key-value pairs) currently
+	 *          in the dictionary */
+	@Override
+	public int getSize() {
+		return numEntries;
+	}
+
+	/** Task: Sees whether the dictionary is empty.
+	 *  @return true if the dictionary is empty */
+	@Override
+	public boolean isEmpty() {
+		return numEntries == 0;
+	}
+
+	/** Task: Sees whether the dictionary is full.
+	 *  @return true if the dictionary can neither grow nor take another
+	 *          entry without exceeding its load factor */
+	@Override
+	public boolean isFull() {
+		return (keys.length >= MAX_CAPACITY) && (numEntries + 1 > loadFactor * keys.length);
+	}
+
+	/** Task: Removes all entries from the dictionary. */
+	@Override
+	public void clear() {
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = null;
+			values[i] = null;
+			distances[i] = 0;
+		}
+		numEntries = 0;
+	}
+
+	// Returns the average number of slots examined to find each entry.
+	double getAverageProbeLength() {
+		long totalProbes = 0;
+		for (int i = 0; i < distances.length; i++) {
+			totalProbes += distances[i];
+		}
+		return (numEntries == 0) ? 0 : (double) totalProbes / numEntries;
+	}
+
+	// Returns the index of the entry with the given key, or -1 if none.
+	// The search ends at an empty slot or at an entry closer to its home
+	// than the key would be at that point, since insertion would have
+	// placed the key before such an entry.
+	private int locate(K key) {
+		int index = getHashIndex(key, keys.length);
+		for (int distance = 1; distances[index] >= distance; distance++) {
+			// An equal key has the same home, so it has the same distance
+			if ((distances[index] == distance) && key.equals(keys[index])) {
+				return index;
+			}
+			index = nextIndex(index);
+		}
+		return -1;
+	}
+
+	// Places a key that is not in the table, displacing entries that are
+	// closer to their home slots than the entry being carried.
+	private void insert(K key, V value) {
+		int index = getHashIndex(key, keys.length);
+		int distance = 1;
+		while (distances[index] != 0) {
+			if (distances[index] < distance) {
+				K displacedKey = keys[index];
+				V displacedValue = values[index];
+				int displacedDistance = distances[index];
+				keys[index] = key;
+				values[index] = value;
+				distances[index] = distance;
+				key = displacedKey;
+				value = displacedValue;
+				distance = displacedDistance;
+			}
+			index = nextIndex(index);
+			distance++;
+		}
+		keys[index] = key;
+		values[index] = value;
+		distances[index] = distance;
+	}
+
+	private int getHashIndex(K key, int tableSize) {
+		int hash = hashStrategy.hash(key);
+		return (int) (((hash & 0xFFFFFFFFL) * tableSize) >>> 32);
+	}
+
+	private int nextIndex(int index) {
+		return (index + 1 == keys.length) ? 0 : index + 1;
+	}
+
+	private void enlargeHashTable() {
+		if (keys.length >= MAX_CAPACITY) {
+			throw new IllegalStateException("Attempt to enlarge a dictionary " +
+					"beyond its maximum capacity of " + MAX_CAPACITY);
+		}
+		K[] oldKeys = keys;
+		V[] oldValues = values;
+		allocate((int) Math.min(keys.length * 2L, MAX_CAPACITY));
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != null) {
+				insert(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		// The casts are safe because the new arrays contain null entries
+		@SuppressWarnings("unchecked")
+		K[] tempKeys = (K[]) new Object[capacity];
+		@SuppressWarnings("unchecked")
+		V[] tempValues = (V[]) new Object[capacity];
+		keys = tempKeys;
+		values = tempValues;
+		distances = new int[capacity];
+	}
+
+	public String toString() {
+		String result = "";
+		for (int i = 0; i < keys.length; i++) {
+			result += i + " ";
+			if (distances[i] == 0)
+				result += "null\n";
+			else
+				result += keys[i] + " " + values[i] + " (probe " + distances[i] + ")\n";
+		}
+		return result;
+	}
+
+	//****************************KeyIterator**************************
+	private class KeyIterator implements Iterator<K> {
+		private int currentIndex; // Current position in hash table
+		private int numberLeft;   // Number of entries left in iteration
+
+		private KeyIterator() {
+			currentIndex = 0;
+			numberLeft = numEntries;
+		}
+
+		public boolean hasNext() {
+			return numberLeft > 0;
+		}
+
+		public K next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			// Skip empty table locations
+			while (distances[currentIndex] == 0) {
+				currentIndex++;
+			}
+			numberLeft--;
+			return keys[currentIndex++];
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	//****************************ValueIterator**************************
+	private class ValueIterator implements Iterator<V> {
+		private int currentIndex; // Current position in hash table
+		private int numberLeft;   // Number of entries left in iteration
+
+		private ValueIterator() {
+			currentIndex = 0;
+			numberLeft = numEntries;
+		}
+
+		public boolean hasNext() {
+			return numberLeft > 0;
+		}
+
+		public V next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			// Skip empty table locations
+			while (distances[currentIndex] == 0) {
+				currentIndex++;
+			}
+			numberLeft--;
+			return values[currentIndex++];
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
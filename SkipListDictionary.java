@@ -0,0 +1,365 @@
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+   A class that implements a sorted dictionary by using a skip list: a
+   sorted linked chain in which each node also links ahead at a random
+   number of higher levels. A node reaches level i + 1 with probability
+   1/4 of reaching level i, so each level skips about four times as far
+   as the one below it. A search starts at the top level and drops down
+   a level whenever the next key would overshoot. add, remove and
+   getValue take O(log n) expected time instead of walking the whole
+   chain as SortedLinkedDictionary does.
+*/
+public class SkipListDictionary<K extends Comparable<? super K>, V> {
+	private static final int MAX_LEVEL = 16;   // Plenty for 4^16 entries
+	private Node head;            // Sentinel with a link at every level
+	private int level;            // Number of levels in use
+	private int numberOfEntries;
+	private int randomState = 0x2545F491;      // Picks node levels
+
+	public SkipListDictionary() {
+		initializeDataFields();
+	}
+
+	/** Task: Adds a new entry to the dictionary. If the given search
+	 *        key already exists in the dictionary, replaces the
+	 *        corresponding value.
+	 *  @param key    an object search key of the new entry
+	 *  @param value  an object associated with the search key
+	 *  @return either null if the new entry was added to the dictionary or the
+	 *          value that was associated with key if that value was replaced */
+	public V add(K key, V value) {
+		if (key == null || value == null) {
+			throw new IllegalArgumentException();
+		}
+		Node[] nodesBefore = newNodeArray(MAX_LEVEL);
+		Node currentNode = findNodesBefore(key, nodesBefore);
+		if ((currentNode != null) && key.equals(currentNode.key)) {
+			V oldValue = currentNode.value;
+			currentNode.value = value;
+			return oldValue;
+		}
+		int nodeLevel = randomLevel();
+		if (nodeLevel > level) {
+			for (int i = level; i < nodeLevel; i++) {
+				nodesBefore[i] = head;
+			}
+			level = nodeLevel;
+		}
+		Node newNode = new Node(key, value, nodeLevel);
+		for (int i = 0; i < nodeLevel; i++) {
+			newNode.next[i] = nodesBefore[i].next[i];
+			nodesBefore[i].next[i] = newNode;
+		}
+		numberOfEntries++;
+		return null;
+	}
+
+	/** Task: Removes a specific entry from the dictionary.
+	 *  @param key  an object search key of the entry to be removed
+	 *  @return either the value that was associated with the search key
+	 *          or null if no such object exists */
+	public V remove(K key) {
+		Node[] nodesBefore = newNodeArray(MAX_LEVEL);
+		Node currentNode = findNodesBefore(key, nodesBefore);
+		if ((currentNode == null) || !key.equals(currentNode.key)) {
+			return null;
+		}
+		for (int i = 0; i < currentNode.next.length; i++) {
+			nodesBefore[i].next[i] = currentNode.next[i];
+		}
+		while ((level > 1) && (head.next[level - 1] == null)) {
+			level--;
+		}
+		numberOfEntries--;
+		return currentNode.value;
+	}
+
+	/** Task: Retrieves the value associated with a given search key.
+	 *  @param key  an object search key of the entry to be retrieved
+	 *  @return either the value that is associated with the search key
+	 *          or null if no such object exists */
+	public V getValue(K key) {
+		Node nodeBefore = head;
+		for (int i = level - 1; i >= 0; i--) {
+			Node nextNode;
+			while (((nextNode = nodeBefore.next[i]) != null)
+					&& (key.compareTo(nextNode.key) > 0)) {
+				nodeBefore = nextNode;
+			}
+		}
+		Node currentNode = nodeBefore.next[0];
+		if ((currentNode != null) && key.equals(currentNode.key)) {
+			return currentNode.value;
+		}
+		return null;
+	}
+
+	/** Task: Sees whether a specific entry is in the dictionary.
+	 *  @param key  an object search key of the desired entry
+	 *  @return true if key is associated with an entry in the
+	 *          dictionary */
+	public boolean contains(K key) {
+		return getValue(key) != null;
+	}
+
+	/** Task: Sees whether the dictionary is empty.
+	 *  @return true if the dictionary is empty */
+	public boolean isEmpty() {
+		return numberOfEntries == 0;
+	}
+
+	/** Task: Gets the size of the dictionary.
+	 *  @return the number of entries (key-value pairs) currently
+	 *          in the dictionary */
+	public int getSize() {
+		return numberOfEntries;
+	}
+
+	/** Task: Removes all entries from the dictionary. */
+	public final void clear() {
+		initializeDataFields();
+	}
+
+	/** Task: Creates an iterator that traverses all search keys in the
+	 *        dictionary in ascending order.
+	 *  @return an iterator that provides sequential access to the search
+	 *          keys in the dictionary */
+	public Iterator<K> getKeyIterator() {
+		return new KeyIterator();
+	}
+
+	/** Task: Creates an iterator that traverses all values in the
+	 *        dictionary in the ascending order of their keys.
+	 *  @return an iterator that provides sequential access to the values
+	 *          in the dictionary */
+	public Iterator<V> getValueIterator() {
+		return new ValueIterator();
+	}
+
+	/** Task: Finds the largest key less than or equal to a given key.
+	 *  @param key  an object search key
+	 *  @return either that key or null if there is none */
+	public K floorKey(K key) {
+		Node nodeBefore = lastNodeBefore(key, true);
+		return (nodeBefore == head) ? null : nodeBefore.key;
+	}
+
+	/** Task: Finds the smallest key greater than or equal to a given key.
+	 *  @param key  an object search key
+	 *  @return either that key or null if there is none */
+	public K ceilingKey(K key) {
+		Node currentNode = lastNodeBefore(key, false).next[0];
+		return (currentNode == null) ? null : currentNode.key;
+	}
+
+	/** Task: Finds the smallest key greater than a given key.
+	 *  @param key  an object search key
+	 *  @return either that key or null if there is none */
+	public K higherKey(K key) {
+		Node currentNode = lastNodeBefore(key, true).next[0];
+		return (currentNode == null) ? null : currentNode.key;
+	}
+
+	/** Task: Finds the largest key less than a given key.
+	 *  @param key  an object search key
+	 *  @return either that key or null if there is none */
+	public K lowerKey(K key) {
+		Node nodeBefore = lastNodeBefore(key, false);
+		return (nodeBefore == head) ? null : nodeBefore.key;
+	}
+
+	/** Task: Creates an iterator over the entries whose keys are at least
+	 *        from and less than to, in ascending order. The first entry is
+	 *        found in O(log n) time; the rest are read as the iterator
+	 *        reaches them.
+	 *  @param from  the smallest search key to include
+	 *  @param to    the search key at which to stop, not included
+	 *  @return an iterator over the entries in the range */
+	public Iterator<Map.Entry<K, V>> range(K from, K to) {
+		if ((from == null) || (to == null)) {
+			throw new IllegalArgumentException("Bounds must not be null");
+		}
+		else if (from.compareTo(to) > 0) {
+			throw new IllegalArgumentException("from must not be greater than to");
+		}
+		return new RangeIterator(lastNodeBefore(from, false).next[0], to);
+	}
+
+	/** Task: Creates an iterator over the entries whose keys are less than
+	 *        a given key, in ascending order.
+	 *  @param to  the search key at which to stop, not included
+	 *  @return an iterator over the entries before to */
+	public Iterator<Map.Entry<K, V>> headRange(K to) {
+		if (to == null) {
+			throw new IllegalArgumentException("Bounds must not be null");
+		}
+		return new RangeIterator(head.next[0], to);
+	}
+
+	/** Task: Creates an iterator over the entries whose keys are at least
+	 *        a given key, in ascending order.
+	 *  @param from  the smallest search key to include
+	 *  @return an iterator over the entries from from on */
+	public Iterator<Map.Entry<K, V>> tailRange(K from) {
+		if (from == null) {
+			throw new IllegalArgumentException("Bounds must not be null");
+		}
+		return new RangeIterator(lastNodeBefore(from, false).next[0], null);
+	}
+
+	// Initializes the class's data fields to indicate an empty list.
+	private void initializeDataFields() {
+		head = new Node(null, null, MAX_LEVEL);
+		level = 1;
+		numberOfEntries = 0;
+	}
+
+	// Records in nodesBefore[i] the last node at level i whose key is less
+	// than key, and returns the node after it at level 0: the node that
+	// contains or could contain key.
+	private Node findNodesBefore(K key, Node[] nodesBefore) {
+		Node nodeBefore = head;
+		for (int i = level - 1; i >= 0; i--) {
+			Node nextNode;
+			while (((nextNode = nodeBefore.next[i]) != null)
+					&& (key.compareTo(nextNode.key) > 0)) {
+				nodeBefore = nextNode;
+			}
+			nodesBefore[i] = nodeBefore;
+		}
+		return nodeBefore.next[0];
+	}
+
+	// Returns the last node whose key is less than key, or less than or
+	// equal to it if inclusive is true; head if there is none.
+	private Node lastNodeBefore(K key, boolean inclusive) {
+		Node nodeBefore = head;
+		for (int i = level - 1; i >= 0; i--) {
+			Node nextNode;
+			while (((nextNode = nodeBefore.next[i]) != null)
+					&& (inclusive ? key.compareTo(nextNode.key) >= 0
+					              : key.compareTo(nextNode.key) > 0)) {
+				nodeBefore = nextNode;
+			}
+		}
+		return nodeBefore;
+	}
+
+	// Returns a level from 1 to MAX_LEVEL, each one a quarter as likely as
+	// the one below, by counting pairs of trailing zero bits (xorshift).
+	private int randomLevel() {
+		randomState ^= randomState << 13;
+		randomState ^= randomState >>> 17;
+		randomState ^= randomState << 5;
+		return Math.min(MAX_LEVEL, 1 + Integer.numberOfTrailingZeros(randomState) / 2);
+	}
+
+	// The cast is safe because the new array contains null entries
+	@SuppressWarnings("unchecked")
+	private Node[] newNodeArray(int length) {
+		return (Node[]) new SkipListDictionary<?, ?>.Node[length];
+	}
+
+	private class KeyIterator implements Iterator<K> {
+		private Node nextNode;
+
+		private KeyIterator() {
+			nextNode = head.next[0];
+		}
+
+		public boolean hasNext() {
+			return nextNode != null;
+		}
+
+		public K next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			K result = nextNode.key;
+			nextNode = nextNode.next[0];
+			return result;
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	private class ValueIterator implements Iterator<V> {
+		private Node nextNode;
+
+		private ValueIterator() {
+			nextNode = head.next[0];
+		}
+
+		public boolean hasNext() {
+			return nextNode != null;
+		}
+
+		public V next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			V result = nextNode.value;
+			nextNode = nextNode.next[0];
+			return result;
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	// Walks level 0 from a starting node until a key reaches the bound.
+	private class RangeIterator implements Iterator<Map.Entry<K, V>> {
+		private Node nextNode;
+		private final K to;    // Exclusive upper bound, or null for none
+
+		private RangeIterator(Node startNode, K toKey) {
+			to = toKey;
+			nextNode = startNode;
+			stopAtBound();
+		}
+
+		public boolean hasNext() {
+			return nextNode != null;
+		}
+
+		public Map.Entry<K, V> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			Map.Entry<K, V> result =
+					new AbstractMap.SimpleImmutableEntry<>(nextNode.key, nextNode.value);
+			nextNode = nextNode.next[0];
+			stopAtBound();
+			return result;
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		private void stopAtBound() {
+			if ((nextNode != null) && (to != null) && (nextNode.key.compareTo(to) >= 0)) {
+				nextNode = null;
+			}
+		}
+	}
+
+	private class Node {
+		private final K key;
+		private V value;
+		private final Node[] next;   // next[i] is the following node at level i
+
+		private Node(K searchKey, V dataValue, int nodeLevel) {
+			key = searchKey;
+			value = dataValue;
+			next = newNodeArray(nodeLevel);
+		}
+	}
+}
@@ -0,0 +1,413 @@
+/**
+   A driver that measures the sorted dictionaries.
+   Run with: java SortedDictionaryBenchmark [section] [sizes...]
+   where section is skiplist, concurrent, btree, range or bulk; with no section all run.
+*/
+public class SortedDictionaryBenchmark {
+
+	public static void main(String[] args) {
+		String section = (args.length > 0) ? args[0] : "all";
+		if ("all".equals(section) || "skiplist".equals(section)) {
+			skipList(sizes(args, 1_000, 100_000, 1_000_000));
+		}
+		if ("all".equals(section) || "concurrent".equals(section)) {
+			concurrent(sizes(args, 1_000, 100_000));
+		}
+		if ("all".equals(section) || "btree".equals(section)) {
+			bTree(sizes(args, 1_000, 100_000, 1_000_000));
+		}
+		if ("all".equals(section) || "range".equals(section)) {
+			range(sizes(args, 1_000_000));
+		}
+		if ("all".equals(section) || "bulk".equals(section)) {
+			bulk(sizes(args, 10_000, 1_000_000, 5_000_000));
+		}
+	}
+
+	// Reads key counts from args[1..], or uses the given defaults.
+	private static int[] sizes(String[] args, int... defaults) {
+		if (args.length < 2) {
+			return defaults;
+		}
+		int[] result = new int[args.length - 1];
+		for (int i = 1; i < args.length; i++) {
+			result[i - 1] = Integer.parseInt(args[i].replace("_", ""));
+		}
+		return result;
+	}
+
+	// Reports the average time of getValue, add and remove on a linked
+	// chain and a skip list holding the even keys below 2 * numKeys. The
+	// chain is built from the largest key down, since each add then stops
+	// at the first node, and it runs fewer operations, since each walks
+	// half the chain on average.
+	private static void skipList(int[] sizes) {
+		System.out.println("Sorted dictionary operations (ns/op):");
+		System.out.printf("%-12s %-10s %12s %12s %12s%n", "keys", "structure",
+				"getValue", "add", "remove");
+		for (int numKeys : sizes) {
+			SortedLinkedDictionary<Integer, Integer> chain = new SortedLinkedDictionary<>();
+			for (int i = numKeys - 1; i >= 0; i--) {
+				chain.add(2 * i, i);
+			}
+			SkipListDictionary<Integer, Integer> skipList = new SkipListDictionary<>();
+			for (int i = 0; i < numKeys; i++) {
+				skipList.add(2 * i, i);
+			}
+			int chainOperations = (int) Math.max(100, Math.min(1_000_000, 100_000_000L / numKeys));
+			for (int round = 0; round < 2; round++) { // First round is warm-up
+				double[] chainTimes = timeOperations(chain::getValue, chain::add, chain::remove,
+						numKeys, chainOperations);
+				double[] skipListTimes = timeOperations(skipList::getValue, skipList::add,
+						skipList::remove, numKeys, 1_000_000);
+				if (round == 1) {
+					System.out.printf("%-12d %-10s %12.0f %12.0f %12.0f%n", numKeys, "chain",
+							chainTimes[0], chainTimes[1], chainTimes[2]);
+					System.out.printf("%-12d %-10s %12.0f %12.0f %12.0f%n", numKeys, "skip list",
+							skipListTimes[0], skipListTimes[1], skipListTimes[2]);
+				}
+			}
+		}
+	}
+
+	// Reports the average time of getValue, add and remove on a skip list
+	// and a B+-tree built the same way as in skipList, and the time per key
+	// of iterating over all of each structure and over a linked chain.
+	private static void bTree(int[] sizes) {
+		System.out.println("B+-tree against skip list (ns/op; scan in ns/key):");
+		System.out.printf("%-12s %-10s %12s %12s %12s %12s%n", "keys", "structure",
+				"getValue", "add", "remove", "scan");
+		for (int numKeys : sizes) {
+			SortedLinkedDictionary<Integer, Integer> chain = new SortedLinkedDictionary<>();
+			for (int i = numKeys - 1; i >= 0; i--) {
+				chain.add(2 * i, i);
+			}
+			SkipListDictionary<Integer, Integer> skipList = new SkipListDictionary<>();
+			BTreeDictionary<Integer, Integer> bTree = new BTreeDictionary<>();
+			for (int i = 0; i < numKeys; i++) {
+				skipList.add(2 * i, i);
+				bTree.add(2 * i, i);
+			}
+			int scans = (int) Math.max(3, 10_000_000L / numKeys);
+			for (int round = 0; round < 2; round++) { // First round is warm-up
+				double chainScan = timeScan(chain::getKeyIterator, scans);
+				double[] skipListTimes = timeOperations(skipList::getValue, skipList::add,
+						skipList::remove, numKeys, 1_000_000);
+				double skipListScan = timeScan(skipList::getKeyIterator, scans);
+				double[] bTreeTimes = timeOperations(bTree::getValue, bTree::add,
+						bTree::remove, numKeys, 1_000_000);
+				double bTreeScan = timeScan(bTree::getKeyIterator, scans);
+				if (round == 1) {
+					System.out.printf("%-12d %-10s %12s %12s %12s %12.1f%n", numKeys, "chain",
+							"-", "-", "-", chainScan);
+					System.out.printf("%-12d %-10s %12.0f %12.0f %12.0f %12.1f%n", numKeys,
+							"skip list", skipListTimes[0], skipListTimes[1], skipListTimes[2],
+							skipListScan);
+					System.out.printf("%-12d %-10s %12.0f %12.0f %12.0f %12.1f%n", numKeys,
+							"B+-tree", bTreeTimes[0], bTreeTimes[1], bTreeTimes[2], bTreeScan);
+				}
+			}
+		}
+	}
+
+	// Reports the average time of a query for the entries in a key
+	// range: by filtering a full scan of the chain, with the chain's range
+	// iterator, which walks to the start, with the skip list's, which
+	// finds the start in O(log n), and with the B+-tree's, which does too
+	// and then streams through leaf arrays. The keys are the even numbers
+	// below 2 * numKeys, so a range of width w holds w / 2 entries.
+	private static void range(int[] sizes) {
+		System.out.println("Range queries (us/query):");
+		System.out.printf("%-12s %8s %14s %14s %14s %14s%n", "keys", "entries",
+				"chain filter", "chain range", "skip range", "btree range");
+		for (int numKeys : sizes) {
+			SortedLinkedDictionary<Integer, Integer> chain = new SortedLinkedDictionary<>();
+			for (int i = numKeys - 1; i >= 0; i--) {
+				chain.add(2 * i, i);
+			}
+			SkipListDictionary<Integer, Integer> skipList = new SkipListDictionary<>();
+			BTreeDictionary<Integer, Integer> bTree = new BTreeDictionary<>();
+			for (int i = 0; i < numKeys; i++) {
+				skipList.add(2 * i, i);
+				bTree.add(2 * i, i);
+			}
+			int chainQueries = (int) Math.max(10, Math.min(100_000, 20_000_000L / numKeys));
+			for (int entries : new int[] {10, 100, 10_000}) {
+				int width = 2 * entries;
+				java.util.function.IntUnaryOperator filter = from -> {
+					int count = 0;
+					java.util.Iterator<Integer> keys = chain.getKeyIterator();
+					while (keys.hasNext()) {
+						int key = keys.next();
+						if ((key >= from) && (key < from + width)) {
+							count++;
+						}
+					}
+					return count;
+				};
+				java.util.function.IntUnaryOperator chainRange =
+						from -> countEntries(chain.range(from, from + width));
+				java.util.function.IntUnaryOperator skipListRange =
+						from -> countEntries(skipList.range(from, from + width));
+				java.util.function.IntUnaryOperator bTreeRange =
+						from -> countEntries(bTree.range(from, from + width));
+				for (int round = 0; round < 2; round++) { // First round is warm-up
+					double filterTime = timeQueries(filter, numKeys, width, chainQueries);
+					double chainTime = timeQueries(chainRange, numKeys, width, chainQueries);
+					double skipListTime = timeQueries(skipListRange, numKeys, width, 200_000);
+					double bTreeTime = timeQueries(bTreeRange, numKeys, width, 200_000);
+					if (round == 1) {
+						System.out.printf("%-12d %8d %14.2f %14.2f %14.2f %14.2f%n", numKeys,
+								entries, filterTime, chainTime, skipListTime, bTreeTime);
+					}
+				}
+			}
+		}
+	}
+
+	// Reports the time to load numKeys presorted keys into a
+	// SortedLinkedDictionary by add in ascending order (only up to 50,000
+	// keys, since each add walks the whole chain), by addAllSorted, and by
+	// addAll of the same keys shuffled; then the time to merge numKeys more
+	// sorted keys into the loaded dictionary with addAllSorted.
+	private static void bulk(int[] sizes) {
+		System.out.println("Bulk load of a sorted linked chain (ms):");
+		System.out.printf("%-12s %12s %14s %14s %14s%n", "keys", "add loop",
+				"addAllSorted", "addAll", "merge");
+		for (int numKeys : sizes) {
+			Integer[] sortedKeys = new Integer[numKeys];
+			for (int i = 0; i < numKeys; i++) {
+				sortedKeys[i] = 2 * i;
+			}
+			Integer[] shuffledKeys = sortedKeys.clone();
+			java.util.Collections.shuffle(java.util.Arrays.asList(shuffledKeys),
+					new java.util.Random(42));
+			java.util.List<java.util.Map.Entry<Integer, Integer>> sortedEntries =
+					new java.util.ArrayList<>(numKeys);
+			java.util.List<java.util.Map.Entry<Integer, Integer>> oddEntries =
+					new java.util.ArrayList<>(numKeys);
+			for (int i = 0; i < numKeys; i++) {
+				sortedEntries.add(java.util.Map.entry(2 * i, i));
+				oddEntries.add(java.util.Map.entry(2 * i + 1, i));
+			}
+			for (int round = 0; round < 2; round++) { // First round is warm-up
+				double addLoop = Double.NaN;
+				if (numKeys <= 50_000) {
+					SortedLinkedDictionary<Integer, Integer> chain = new SortedLinkedDictionary<>();
+					long start = System.nanoTime();
+					for (int i = 0; i < numKeys; i++) {
+						chain.add(sortedKeys[i], i);
+					}
+					addLoop = (System.nanoTime() - start) / 1e6;
+				}
+				SortedLinkedDictionary<Integer, Integer> loaded = new SortedLinkedDictionary<>();
+				long start = System.nanoTime();
+				loaded.addAllSorted(sortedEntries.iterator());
+				double sortedLoad = (System.nanoTime() - start) / 1e6;
+				start = System.nanoTime();
+				loaded.addAllSorted(oddEntries.stream());
+				double merge = (System.nanoTime() - start) / 1e6;
+				loaded = null;
+				SortedLinkedDictionary<Integer, Integer> batch = new SortedLinkedDictionary<>();
+				start = System.nanoTime();
+				batch.addAll(shuffledKeys, shuffledKeys);
+				double batchLoad = (System.nanoTime() - start) / 1e6;
+				if (round == 1) {
+					System.out.printf("%-12d %12s %14.1f %14.1f %14.1f%n", numKeys,
+							Double.isNaN(addLoop) ? "-" : String.format("%.1f", addLoop),
+							sortedLoad, batchLoad, merge);
+				}
+			}
+		}
+	}
+
+	private static int countEntries(java.util.Iterator<?> iterator) {
+		int count = 0;
+		while (iterator.hasNext()) {
+			iterator.next();
+			count++;
+		}
+		return count;
+	}
+
+	// Runs query on random range starts and returns microseconds per query.
+	private static double timeQueries(java.util.function.IntUnaryOperator query,
+			int numKeys, int width, int queries) {
+		java.util.Random random = new java.util.Random(42);
+		long checksum = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < queries; i++) {
+			checksum += query.applyAsInt(random.nextInt(2 * numKeys - width));
+		}
+		long nanos = System.nanoTime() - start;
+		if (checksum == 42) {
+			System.out.print(""); // Keeps the queries from being optimized away
+		}
+		return nanos / 1e3 / queries;
+	}
+
+	// Iterates over all keys scans times and returns ns per key visited.
+	private static double timeScan(
+			java.util.function.Supplier<java.util.Iterator<Integer>> iterators, int scans) {
+		long checksum = 0;
+		long visited = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < scans; i++) {
+			java.util.Iterator<Integer> iterator = iterators.get();
+			while (iterator.hasNext()) {
+				checksum += iterator.next();
+				visited++;
+			}
+		}
+		long nanos = System.nanoTime() - start;
+		if (checksum == 42) {
+			System.out.print(""); // Keeps the scan from being optimized away
+		}
+		return (double) nanos / visited;
+	}
+
+	// Times getValue of present keys, then add and remove of absent (odd)
+	// keys in batches of distinct keys, each batch removed before the next
+	// is added, so the dictionary ends as it began even though
+	// SortedLinkedDictionary.add keeps duplicate keys. Returns ns per call.
+	private static double[] timeOperations(
+			java.util.function.Function<Integer, Integer> getValue,
+			java.util.function.BiFunction<Integer, Integer, Integer> add,
+			java.util.function.Function<Integer, Integer> remove,
+			int numKeys, int operations) {
+		int[] keys = new int[numKeys];
+		java.util.Random random = new java.util.Random(42);
+		for (int i = 0; i < numKeys; i++) {
+			int j = random.nextInt(i + 1);  // Shuffles 0 to numKeys - 1
+			keys[i] = keys[j];
+			keys[j] = i;
+		}
+		long checksum = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < operations; i++) {
+			checksum += getValue.apply(2 * keys[i % numKeys]);
+		}
+		long getNanos = System.nanoTime() - start;
+		long addNanos = 0;
+		long removeNanos = 0;
+		for (int done = 0; done < operations; done += numKeys) {
+			int batch = Math.min(numKeys, operations - done);
+			long batchStart = System.nanoTime();
+			for (int i = 0; i < batch; i++) {
+				add.apply(2 * keys[i] + 1, i);
+			}
+			long added = System.nanoTime();
+			for (int i = 0; i < batch; i++) {
+				remove.apply(2 * keys[i] + 1);
+			}
+			addNanos += added - batchStart;
+			removeNanos += System.nanoTime() - added;
+		}
+		if (checksum == 42) {
+			System.out.print(""); // Keeps the lookups from being optimized away
+		}
+		return new double[] {(double) getNanos / operations,
+				(double) addNanos / operations, (double) removeNanos / operations};
+	}
+
+	// Runs a mixed workload from 1 to 64 threads against a SkipListDictionary
+	// shared through one lock and against a ConcurrentSkipListDictionary,
+	// with 90% and with 50% getValue.
+	private static void concurrent(int[] sizes) {
+		System.out.println("Mixed read/write scaling (Mops/s):");
+		System.out.printf("%-12s %8s %12s %12s %12s %12s%n", "keys", "threads",
+				"locked 90", "lockfree 90", "locked 50", "lockfree 50");
+		for (int numKeys : sizes) {
+			// Warm-up
+			runLocked(1, numKeys, 90);
+			runLockFree(1, numKeys, 90);
+			for (int threads = 1; threads <= 64; threads *= 2) {
+				double locked = runLocked(threads, numKeys, 90);
+				double lockFree = runLockFree(threads, numKeys, 90);
+				double lockedMixed = runLocked(threads, numKeys, 50);
+				double lockFreeMixed = runLockFree(threads, numKeys, 50);
+				System.out.printf("%-12d %8d %12.2f %12.2f %12.2f %12.2f%n", numKeys,
+						threads, locked, lockFree, lockedMixed, lockFreeMixed);
+			}
+		}
+	}
+
+	private static double runLocked(int threads, int numKeys, int readPercent) {
+		SkipListDictionary<Integer, Integer> skipList = new SkipListDictionary<>();
+		Object lock = new Object();
+		return runConcurrent(
+				key -> { synchronized (lock) { return skipList.getValue(key); } },
+				(key, value) -> { synchronized (lock) { return skipList.add(key, value); } },
+				key -> { synchronized (lock) { return skipList.remove(key); } },
+				threads, numKeys, readPercent);
+	}
+
+	private static double runLockFree(int threads, int numKeys, int readPercent) {
+		ConcurrentSkipListDictionary<Integer, Integer> skipList =
+				new ConcurrentSkipListDictionary<>();
+		return runConcurrent(skipList::getValue, skipList::add, skipList::remove,
+				threads, numKeys, readPercent);
+	}
+
+	// Adds the keys below numKeys, then lets each thread run random
+	// operations for a fixed time; readPercent of them are getValue and
+	// the rest alternate between remove and add of a random key. Returns
+	// millions of operations per second over all threads.
+	private static double runConcurrent(
+			java.util.function.Function<Integer, Integer> getValue,
+			java.util.function.BiFunction<Integer, Integer, Integer> add,
+			java.util.function.Function<Integer, Integer> remove,
+			int threads, int numKeys, int readPercent) {
+		for (int i = 0; i < numKeys; i++) {
+			add.apply(i, i);
+		}
+		long millis = 500;
+		java.util.concurrent.atomic.LongAdder operations =
+				new java.util.concurrent.atomic.LongAdder();
+		java.util.concurrent.CountDownLatch ready =
+				new java.util.concurrent.CountDownLatch(1);
+		long[] deadline = new long[1];
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			workers[t] = new Thread(() -> {
+				java.util.concurrent.ThreadLocalRandom random =
+						java.util.concurrent.ThreadLocalRandom.current();
+				long count = 0;
+				try {
+					ready.await();
+				}
+				catch (InterruptedException e) {
+					return;
+				}
+				while ((count & 0xFF) != 0 || System.nanoTime() < deadline[0]) {
+					Integer key = random.nextInt(numKeys);
+					int choice = random.nextInt(100);
+					if (choice < readPercent) {
+						getValue.apply(key);
+					}
+					else if ((choice & 1) == 0) {
+						remove.apply(key);
+					}
+					else {
+						add.apply(key, key);
+					}
+					count++;
+				}
+				operations.add(count);
+			});
+			workers[t].start();
+		}
+		long start = System.nanoTime();
+		deadline[0] = start + millis * 1_000_000;
+		ready.countDown();
+		for (Thread worker : workers) {
+			try {
+				worker.join();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return operations.sum() * 1e3 / (System.nanoTime() - start);
+	}
+}
@@ -1,5 +1,10 @@
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.stream.Stream;
 
 /**
    A class that implements a dictionary by using a sorted linked chain.
@@ -95,6 +100,71 @@ public class SortedLinkedDictionary<K extends Comparable<? super K>, V> {
 		return result;
    } 
 
+	// Adds entries given in ascending key order in one pass over the chain
+	// and the entries, instead of one walk from firstNode per entry. Into
+	// an empty dictionary this builds the chain in O(n); otherwise it
+	// merges the entries with the chain in O(n + m). As with add, an entry
+	// goes before any existing entries with an equal key. Throws
+	// IllegalArgumentException at the first entry out of order, keeping
+	// the entries added before it.
+	public void addAllSorted(Iterator<? extends Map.Entry<? extends K, ? extends V>> entries)	{
+		Node currentNode = firstNode;
+		Node nodeBefore = null;
+		K previousKey = null;
+		
+		while (entries.hasNext())	{
+			Map.Entry<? extends K, ? extends V> entry = entries.next();
+			K key = entry.getKey();
+			if ((key == null) || (entry.getValue() == null))	{
+				throw new IllegalArgumentException("Keys and values must not be null");
+			} 
+			if ((previousKey != null) && (key.compareTo(previousKey) < 0))	{
+				throw new IllegalArgumentException("Entries must be in ascending " +
+						"key order, but " + key + " follows " + previousKey);
+			} 
+			
+			// Resume the search where the previous entry went
+			while ((currentNode != null) && (key.compareTo(currentNode.getKey()) > 0))	{
+				nodeBefore = currentNode;
+				currentNode = currentNode.getNextNode();
+			} 
+			
+			Node newNode = new Node(key, entry.getValue(), currentNode);
+			if (nodeBefore == null)	{
+				firstNode = newNode;
+			}
+			else	{
+				nodeBefore.setNextNode(newNode);
+			} 
+			nodeBefore = newNode;
+			previousKey = key;
+			numberOfEntries++;
+		} 
+	} 
+
+	// Same as addAllSorted(entries.iterator()).
+	public void addAllSorted(Stream<? extends Map.Entry<? extends K, ? extends V>> entries)	{
+		addAllSorted(entries.iterator());
+	} 
+
+	// Adds keys[i] with values[i] for every i, in any order: sorts the
+	// batch once, by a stable sort so that equal keys keep their order,
+	// then merges it in with addAllSorted.
+	public void addAll(K[] keys, V[] values)	{
+		if (keys.length != values.length)	{
+			throw new IllegalArgumentException("There must be one value per key");
+		} 
+		List<Map.Entry<K, V>> batch = new ArrayList<>(keys.length);
+		for (int i = 0; i < keys.length; i++)	{
+			if ((keys[i] == null) || (values[i] == null))	{
+				throw new IllegalArgumentException("Keys and values must not be null");
+			} 
+			batch.add(new AbstractMap.SimpleImmutableEntry<>(keys[i], values[i]));
+		} 
+		batch.sort(Map.Entry.comparingByKey());
+		addAllSorted(batch.iterator());
+	} 
+
 	public boolean contains(K key)   {
 		return getValue(key) != null; 
    } 
@@ -119,12 +189,91 @@ public class SortedLinkedDictionary<K extends Comparable<? super K>, V> {
 		return new ValueIterator();
 	} 
 
+	// Returns the largest key less than or equal to key, or null if none.
+	public K floorKey(K key)	{
+		Node nodeBefore = lastNodeBefore(key, true);
+		return (nodeBefore == null) ? null : nodeBefore.getKey();
+	} 
+
+	// Returns the smallest key greater than or equal to key, or null if none.
+	public K ceilingKey(K key)	{
+		Node currentNode = firstNodeAfter(key, true);
+		return (currentNode == null) ? null : currentNode.getKey();
+	} 
+
+	// Returns the smallest key greater than key, or null if none.
+	public K higherKey(K key)	{
+		Node currentNode = firstNodeAfter(key, false);
+		return (currentNode == null) ? null : currentNode.getKey();
+	} 
+
+	// Returns the largest key less than key, or null if none.
+	public K lowerKey(K key)	{
+		Node nodeBefore = lastNodeBefore(key, false);
+		return (nodeBefore == null) ? null : nodeBefore.getKey();
+	} 
+
+	// Returns an iterator over the entries whose keys are at least from and
+	// less than to, in ascending order. Entries are read as the iterator
+	// reaches them, not copied up front.
+	public Iterator<Map.Entry<K, V>> range(K from, K to)	{
+		if ((from == null) || (to == null))	{
+			throw new IllegalArgumentException("Bounds must not be null");
+		}
+		else if (from.compareTo(to) > 0)	{
+			throw new IllegalArgumentException("from must not be greater than to");
+		} 
+		return new RangeIterator(firstNodeAfter(from, true), to);
+	} 
+
+	// Returns an iterator over the entries whose keys are less than to.
+	public Iterator<Map.Entry<K, V>> headRange(K to)	{
+		if (to == null)	{
+			throw new IllegalArgumentException("Bounds must not be null");
+		} 
+		return new RangeIterator(firstNode, to);
+	} 
+
+	// Returns an iterator over the entries whose keys are at least from.
+	public Iterator<Map.Entry<K, V>> tailRange(K from)	{
+		if (from == null)	{
+			throw new IllegalArgumentException("Bounds must not be null");
+		} 
+		return new RangeIterator(firstNodeAfter(from, true), null);
+	} 
+
    // Initializes the class's data fields to indicate an empty list.
    private void initializeDataFields()   {
 		firstNode = null;
 		numberOfEntries = 0;
    } 
 	
+   // Returns the first node whose key is greater than key, or greater than
+   // or equal to it if inclusive is true; null if there is none.
+   private Node firstNodeAfter(K key, boolean inclusive)   {
+		Node currentNode = firstNode;
+		while ((currentNode != null) && 
+		        (inclusive ? key.compareTo(currentNode.getKey()) > 0
+		                   : key.compareTo(currentNode.getKey()) >= 0))	{
+			currentNode = currentNode.getNextNode();
+		} 
+		return currentNode;
+   } 
+
+   // Returns the last node whose key is less than key, or less than or
+   // equal to it if inclusive is true; null if there is none.
+   private Node lastNodeBefore(K key, boolean inclusive)   {
+		Node currentNode = firstNode;
+		Node nodeBefore = null;
+		while ((currentNode != null) && 
+		        (inclusive ? key.compareTo(currentNode.getKey()) >= 0
+		                   : key.compareTo(currentNode.getKey()) > 0))	{
+			nodeBefore = currentNode;
+			currentNode = currentNode.getNextNode();
+		} 
+		return nodeBefore;
+   } 
+	
 // Same as in LinkedDictionary.
 // Since iterators implement Iterator, methods must be public.
 	private class KeyIterator implements Iterator<K> {
@@ -187,6 +336,44 @@ public class SortedLinkedDictionary<K extends Comparable<? super K>, V> {
 		} 
 	} 
 
+	// Walks the chain from a starting node until a key reaches the bound.
+	private class RangeIterator implements Iterator<Map.Entry<K, V>>	{
+		private Node nextNode;
+		private final K to;    // Exclusive upper bound, or null for none
+		
+		private RangeIterator(Node startNode, K toKey)	{
+			to = toKey;
+			nextNode = startNode;
+			stopAtBound();
+		} 
+		
+		public boolean hasNext() {
+			return nextNode != null;
+		} 
+		
+		public Map.Entry<K, V> next()	{
+			if (!hasNext())	{
+				throw new NoSuchElementException();
+			} 
+			Map.Entry<K, V> result = new AbstractMap.SimpleImmutableEntry<>(
+					nextNode.getKey(), nextNode.getValue());
+			nextNode = nextNode.getNextNode();
+			stopAtBound();
+			return result;
+		} 
+		
+		public void remove() {
+			throw new UnsupportedOperationException();
+		} 
+
+		private void stopAtBound()	{
+			if ((nextNode != null) && (to != null) && 
+			    (nextNode.getKey().compareTo(to) >= 0))	{
+				nextNode = null;
+			} 
+		} 
+	} 
+
 	private class Node	{
 		private K key;
 		private V value;
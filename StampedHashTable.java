@@ -0,0 +1,205 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+   A class that implements a thread-safe dictionary for read-mostly use by
+   guarding one HashTableOpenAddressing with a StampedLock. Writers, and so
+   every enlargement, take the write lock. Readers first look the key up
+   without locking and then check that no write started in the meantime;
+   only if one did do they retry under the read lock. A reader that
+   succeeds optimistically writes nothing shared, so readers on different
+   cores never contend for the lock word.
+
+   A lookup that races with a write may see the table half changed, and
+   may then fail with an exception; such a failure is treated like any
+   other failed validation. So that equals never runs on a key a writer
+   is changing, the optimistic read only finds the entry whose cached
+   hash matches and reads its key and value; the keys are compared after
+   validation. If several entries share the hash, the reader takes the
+   read lock instead.
+*/
+public class StampedHashTable<K, V> implements DictionaryInterface<K, V> {
+	private final HashTableOpenAddressing<K, V> dictionary;
+	private final StampedLock lock = new StampedLock();
+
+	public StampedHashTable() {
+		this(new HashTableOpenAddressing<>());
+	}
+
+	/** @param dictionaryIn  an empty table to share; it must not be used
+	 *                       directly once passed here */
+	public StampedHashTable(HashTableOpenAddressing<K, V> dictionaryIn) {
+		if (dictionaryIn == null) {
+			throw new IllegalArgumentException("Dictionary must not be null");
+		}
+		dictionary = dictionaryIn;
+	}
+
+	/** Task: Adds a new entry to the dictionary. If the given search
+	 *        key already exists in the dictionary, replaces the
+	 *        corresponding value.
+	 *  @param key    an object search key of the new entry
+	 *  @param value  an object associated with the search key
+	 *  @return either null if the new entry was added to the dictionary or the
+	 *          value that was associated with key if that value was replaced */
+	@Override
+	public V add(K key, V value) {
+		long stamp = lock.writeLock();
+		try {
+			return dictionary.add(key, value);
+		}
+		finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/** Task: Removes a specific entry from the dictionary.
+	 *  @param key  an object search key of the entry to be removed
+	 *  @return either the value that was associated with the search key
+	 *          or null if no such object exists */
+	@Override
+	public V remove(K key) {
+		long stamp = lock.writeLock();
+		try {
+			return dictionary.remove(key);
+		}
+		finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/** Task: Retrieves the value associated with a given search key.
+	 *  @param key  an object search key of the entry to be retrieved
+	 *  @return either the value that is associated with the search key
+	 *          or null if no such object exists */
+	@Override
+	public V getValue(K key) {
+		long stamp = lock.tryOptimisticRead();
+		if (stamp != 0) {
+			try {
+				int position = dictionary.findHashMatch(key);
+				Object candidate = (position >= 0) ? dictionary.keyAt(position) : null;
+				V value = (position >= 0) ? dictionary.valueAt(position) : null;
+				if ((position != -2) && lock.validate(stamp)) {
+					// Only now is the candidate safe to compare
+					return ((candidate != null) && key.equals(candidate)) ? value : null;
+				}
+			}
+			catch (RuntimeException e) {
+				// Thrown by a torn read, unless nothing was written meanwhile
+				if (lock.validate(stamp)) {
+					throw e;
+				}
+			}
+		}
+		stamp = lock.readLock();
+		try {
+			return dictionary.getValue(key);
+		}
+		finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/** Task: Sees whether a specific entry is in the dictionary.
+	 *  @param key  an object search key of the desired entry
+	 *  @return true if key is associated with an entry in the
+	 *          dictionary */
+	@Override
+	public boolean contains(K key) {
+		return getValue(key) != null;
+	}
+
+	/** Task: Creates an iterator over a snapshot of the search keys, taken
+	 *        under the read lock.
+	 *  @return an iterator that provides sequential access to the search
+	 *          keys in the dictionary */
+	@Override
+	public Iterator<K> getKeyIterator() {
+		List<K> snapshot = new ArrayList<>();
+		long stamp = lock.readLock();
+		try {
+			Iterator<K> keys = dictionary.getKeyIterator();
+			while (keys.hasNext()) {
+				snapshot.add(keys.next());
+			}
+		}
+		finally {
+			lock.unlockRead(stamp);
+		}
+		return snapshot.iterator();
+	}
+
+	/** Task: Creates an iterator over a snapshot of the values, taken
+	 *        under the read lock.
+	 *  @return an iterator that provides sequential access to the values
+	 *          in the dictionary */
+	@Override
+	public Iterator<V> getValueIterator() {
+		List<V> snapshot = new ArrayList<>();
+		long stamp = lock.readLock();
+		try {
+			Iterator<V> values = dictionary.getValueIterator();
+			while (values.hasNext()) {
+				snapshot.add(values.next());
+			}
+		}
+		finally {
+			lock.unlockRead(stamp);
+		}
+		return snapshot.iterator();
+	}
+
+	/** Task: Gets the size of the dictionary.
+	 *  @return the number of entries (key-value pairs) currently
+	 *          in the dictionary */
+	@Override
+	public int getSize() {
+		long stamp = lock.tryOptimisticRead();
+		int size = dictionary.getSize();
+		if (!lock.validate(stamp)) {
+			stamp = lock.readLock();
+			try {
+				size = dictionary.getSize();
+			}
+			finally {
+				lock.unlockRead(stamp);
+			}
+		}
+		return size;
+	}
+
+	/** Task: Sees whether the dictionary is empty.
+	 *  @return true if the dictionary is empty */
+	@Override
+	public boolean isEmpty() {
+		return getSize() == 0;
+	}
+
+	/** Task: Sees whether the dictionary is full.
+	 *  @return true if the dictionary is full */
+	@Override
+	public boolean isFull() {
+		long stamp = lock.readLock();
+		try {
+			return dictionary.isFull();
+		}
+		finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/** Task: Removes all entries from the dictionary. */
+	@Override
+	public void clear() {
+		long stamp = lock.writeLock();
+		try {
+			dictionary.clear();
+		}
+		finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+}
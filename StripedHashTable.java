@@ -0,0 +1,222 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+   A class that implements a thread-safe dictionary by splitting its
+   entries over a fixed number of segments, each a HashTableOpenAddressing
+   guarded by its own lock. Threads working on keys in different segments
+   never wait for each other, and each segment grows on its own, so an
+   enlargement only blocks the keys of one segment.
+
+   A key's segment comes from the low bits of its mixed hash, while each
+   segment picks slots from the high bits, so the keys of one segment
+   still spread over its whole table.
+*/
+public class StripedHashTable<K, V> implements DictionaryInterface<K, V> {
+	private static final int DEFAULT_SEGMENTS = 64;
+	private static final int MAX_SEGMENTS = 1 << 16;
+	private final HashTableOpenAddressing<K, V>[] segments;
+	private final ReentrantLock[] locks;    // locks[i] guards segments[i]
+	private final HashStrategy<? super K> hashStrategy;
+
+	public StripedHashTable() {
+		this(DEFAULT_SEGMENTS);
+	}
+
+	public StripedHashTable(int concurrencyLevel) {
+		this(concurrencyLevel, HashStrategy.murmur3());
+	}
+
+	/** @param concurrencyLevel  the expected number of threads updating
+	 *                           the dictionary at once; rounded up to a
+	 *                           power of two to give the number of segments
+	 *  @param hashStrategyIn    the strategy used to pick segments and slots */
+	public StripedHashTable(int concurrencyLevel, HashStrategy<? super K> hashStrategyIn) {
+		if (concurrencyLevel <= 0 || concurrencyLevel > MAX_SEGMENTS) {
+			throw new IllegalArgumentException("Concurrency level must be " +
+					"between 1 and " + MAX_SEGMENTS);
+		}
+		else if (hashStrategyIn == null) {
+			throw new IllegalArgumentException("Hash strategy must not be null");
+		}
+		hashStrategy = hashStrategyIn;
+		int numSegments = Integer.highestOneBit(concurrencyLevel);
+		if (numSegments < concurrencyLevel) {
+			numSegments *= 2;
+		}
+		// The cast is safe because the new array contains null entries
+		@SuppressWarnings("unchecked")
+		HashTableOpenAddressing<K, V>[] temp =
+				(HashTableOpenAddressing<K, V>[]) new HashTableOpenAddressing<?, ?>[numSegments];
+		segments = temp;
+		locks = new ReentrantLock[numSegments];
+		for (int i = 0; i < numSegments; i++) {
+			segments[i] = new HashTableOpenAddressing<>(5, 0.75, hashStrategyIn);
+			locks[i] = new ReentrantLock();
+		}
+	}
+
+	/** Task: Adds a new entry to the dictionary. If the given search
+	 *        key already exists in the dictionary, replaces the
+	 *        corresponding value.
+	 *  @param key    an object search key of the new entry
+	 *  @param value  an object associated with the search key
+	 *  @return either null if the new entry was added to the dictionary or the
+	 *          value that was associated with key if that value was replaced */
+	@Override
+	public V add(K key, V value) {
+		if (key == null || value == null) {
+			throw new IllegalArgumentException();
+		}
+		int segment = getSegmentIndex(key);
+		locks[segment].lock();
+		try {
+			return segments[segment].add(key, value);
+		}
+		finally {
+			locks[segment].unlock();
+		}
+	}
+
+	/** Task: Removes a specific entry from the dictionary.
+	 *  @param key  an object search key of the entry to be removed
+	 *  @return either the value that was associated with the search key
+	 *          or null if no such object exists */
+	@Override
+	public V remove(K key) {
+		int segment = getSegmentIndex(key);
+		locks[segment].lock();
+		try {
+			return segments[segment].remove(key);
+		}
+		finally {
+			locks[segment].unlock();
+		}
+	}
+
+	/** Task: Retrieves the value associated with a given search key.
+	 *  @param key  an object search key of the entry to be retrieved
+	 *  @return either the value that is associated with the search key
+	 *          or null if no such object exists */
+	@Override
+	public V getValue(K key) {
+		int segment = getSegmentIndex(key);
+		locks[segment].lock();
+		try {
+			return segments[segment].getValue(key);
+		}
+		finally {
+			locks[segment].unlock();
+		}
+	}
+
+	/** Task: Sees whether a specific entry is in the dictionary.
+	 *  @param key  an object search key of the desired entry
+	 *  @return true if key is associated with an entry in the
+	 *          dictionary */
+	@Override
+	public boolean contains(K key) {
+		return getValue(key) != null;
+	}
+
+	/** Task: Creates an iterator over a snapshot of the search keys. Each
+	 *        segment is copied under its lock, so the snapshot reflects
+	 *        every segment at some moment but not the whole dictionary at
+	 *        one moment.
+	 *  @return an iterator that provides sequential access to the search
+	 *          keys in the dictionary */
+	@Override
+	public Iterator<K> getKeyIterator() {
+		List<K> snapshot = new ArrayList<>();
+		for (int i = 0; i < segments.length; i++) {
+			locks[i].lock();
+			try {
+				Iterator<K> keys = segments[i].getKeyIterator();
+				while (keys.hasNext()) {
+					snapshot.add(keys.next());
+				}
+			}
+			finally {
+				locks[i].unlock();
+			}
+		}
+		return snapshot.iterator();
+	}
+
+	/** Task: Creates an iterator over a snapshot of the values, taken the
+	 *        same way as for getKeyIterator.
+	 *  @return an iterator that provides sequential access to the values
+	 *          in the dictionary */
+	@Override
+	public Iterator<V> getValueIterator() {
+		List<V> snapshot = new ArrayList<>();
+		for (int i = 0; i < segments.length; i++) {
+			locks[i].lock();
+			try {
+				Iterator<V> values = segments[i].getValueIterator();
+				while (values.hasNext()) {
+					snapshot.add(values.next());
+				}
+			}
+			finally {
+				locks[i].unlock();
+			}
+		}
+		return snapshot.iterator();
+	}
+
+	/** Task: Gets the size of the dictionary, summed over the segments
+	 *        one at a time.
+	 *  @return the number of entries (key-value pairs) currently
+	 *          in the dictionary */
+	@Override
+	public int getSize() {
+		int size = 0;
+		for (int i = 0; i < segments.length; i++) {
+			locks[i].lock();
+			try {
+				size += segments[i].getSize();
+			}
+			finally {
+				locks[i].unlock();
+			}
+		}
+		return size;
+	}
+
+	/** Task: Sees whether the dictionary is empty.
+	 *  @return true if the dictionary is empty */
+	@Override
+	public boolean isEmpty() {
+		return getSize() == 0;
+	}
+
+	/** Task: Sees whether the dictionary is full.
+	 *  @return false, since each segment grows as needed */
+	@Override
+	public boolean isFull() {
+		return false;
+	}
+
+	/** Task: Removes all entries from the dictionary, one segment at a
+	 *        time. */
+	@Override
+	public void clear() {
+		for (int i = 0; i < segments.length; i++) {
+			locks[i].lock();
+			try {
+				segments[i].clear();
+			}
+			finally {
+				locks[i].unlock();
+			}
+		}
+	}
+
+	// Picks a segment from the low bits of the mixed hash.
+	private int getSegmentIndex(K key) {
+		return hashStrategy.hash(key) & (segments.length - 1);
+	}
+}
@@ -0,0 +1,398 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+   A class that implements a dictionary by using a Swiss table: open
+   addressing over groups of eight slots, where each slot has a control
+   byte holding either 7 bits of its key's hash or an empty or deleted
+   marker. The eight control bytes of a group are packed into one long,
+   so a probe tests a whole group at once with word-wide (SWAR) bit
+   tricks and compares keys only in slots whose 7 hash bits match. A
+   search for an absent key usually ends after one group without
+   touching any key, which lets the table run at 7/8 load.
+*/
+public class SwissHashTable<K, V> implements DictionaryInterface<K, V> {
+	private int numEntries;
+	private int numDeleted;             // Slots marked DELETED
+	private int growthLeft;             // EMPTY slots usable before growing
+	private static final int GROUP_SIZE = 8;
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final int MAX_CAPACITY = 1 << 30;
+	private static final double MAX_LOAD = 0.875;
+	// Control bytes: a full slot holds the low 7 bits of its hash, so its
+	// high bit is 0; the markers below both have the high bit set
+	private static final byte EMPTY = (byte) 0x80;
+	private static final byte DELETED = (byte) 0xFE;
+	private static final long LSBS = 0x0101010101010101L; // Low bit of each byte
+	private static final long MSBS = 0x8080808080808080L; // High bit of each byte
+	private K[] keys;
+	private V[] values;
+	private long[] control;             // Eight control bytes per group
+	private int groupMask;              // Number of groups - 1
+	private HashStrategy<? super K> hashStrategy;
+
+	public SwissHashTable() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public SwissHashTable(int initialCapacity) {
+		this(initialCapacity, HashStrategy.murmur3());
+	}
+
+	public SwissHashTable(int initialCapacity, HashStrategy<? super K> hashStrategyIn) {
+		if (initialCapacity <= 0) {
+			throw new IllegalArgumentException("Initial capacity must be " +
+					"greater than 0");
+		}
+		else if (hashStrategyIn == null) {
+			throw new IllegalArgumentException("Hash strategy must not be null");
+		}
+		else if (initialCapacity > MAX_CAPACITY * MAX_LOAD) {
+			throw new IllegalStateException("Attempt to create a dictionary " +
+					"whose capacity is larger than " + (int) (MAX_CAPACITY * MAX_LOAD));
+		}
+		hashStrategy = hashStrategyIn;
+		// Room for initialCapacity entries at 7/8 load, in a power of two
+		// number of groups so that triangular probing visits every group
+		int slots = GROUP_SIZE;
+		while (slots * MAX_LOAD < initialCapacity) {
+			slots *= 2;
+		}
+		allocate(slots);
+	}
+
+	/** Task: Adds a new entry to the dictionary. If the given search
+	 *        key already exists in the dictionary, replaces the
+	 *        corresponding value.
+	 *  @param keyIn    an object search key of the new entry
+	 *  @param valueIn  an object associated with the search key
+	 *  @return either null if the new entry was added to the dictionary or the
+	 *          value that was associated with key if that value was replaced */
+	@Override
+	public V add(K keyIn, V valueIn) {
+		if (keyIn == null || valueIn == null) {
+			throw new IllegalArgumentException();
+		}
+		int hash = hashStrategy.hash(keyIn);
+		int index = locate(keyIn, hash);
+		if (index != -1) {
+			V oldValue = values[index];
+			values[index] = valueIn;
+			return oldValue;
+		}
+		index = findInsertSlot(hash);
+		if ((getControl(index) == EMPTY) && (growthLeft == 0)) {
+			rehash();
+			index = findInsertSlot(hash);
+		}
+		if (getControl(index) == EMPTY) {
+			growthLeft--;
+		}
+		else {
+			numDeleted--;               // Reusing a deleted slot
+		}
+		keys[index] = keyIn;
+		values[index] = valueIn;
+		setControl(index, (byte) (hash & 0x7F));
+		numEntries++;
+		return null;
+	}
+
+	/** Task: Removes a specific entry from the dictionary.
+	 *  @param key  an object search key of the entry to be removed
+	 *  @return either the value that was associated with the search key
+	 *          or null if no such object exists */
+	@Override
+	public V remove(K key) {
+		int index = locate(key, hashStrategy.hash(key));
+		if (index == -1) {
+			return null;
+		}
+		V removedValue = values[index];
+		keys[index] = null;
+		values[index] = null;
+		// A group that still has an EMPTY slot has never been full, so no
+		// search has gone past it and the slot can simply become EMPTY.
+		// Otherwise a search may need to continue past it: mark DELETED.
+		if (matchEmpty(control[index / GROUP_SIZE]) != 0) {
+			setControl(index, EMPTY);
+			growthLeft++;
+		}
+		else {
+			setControl(index, DELETED);
+			numDeleted++;
+		}
+		numEntries--;
+		return removedValue;
+	}
+
+	/** Task: Retrieves the value associated with a given search key.
+	 *  @param key  an object search key of the entry to be retrieved
+	 *  @return either the value that is associated with the search key
+	 *          or null if no such object exists */
+	@Override
+	public V getValue(K key) {
+		int index = locate(key, hashStrategy.hash(key));
+		return (index != -1) ? values[index] : null;
+	}
+
+	/** Task: Sees whether a specific entry is in the dictionary.
+	 *  @param key  an object search key of the desired entry
+	 *  @return true if key is associated with an entry in the
+	 *          dictionary */
+	@Override
+	public boolean contains(K key) {
+		return locate(key, hashStrategy.hash(key)) != -1;
+	}
+
+	/** Task: Creates an iterator that traverses all search keys in the
+	 *        dictionary.
+	 *  @return an iterator that provides sequential access to the search
+	 *          keys in the dictionary */
+	@Override
+	public Iterator<K> getKeyIterator() {
+		return new KeyIterator();
+	}
+
+	/** Task: Creates an iterator that traverses all values in the
+	 *        dictionary.
+	 *  @return an iterator that provides sequential access to the values
+	 *          in the dictionary */
+	@Override
+	public Iterator<V> getValueIterator() {
+		return new ValueIterator();
+	}
+
+	/** Task: Gets the size of the dictionary.
+	 *  @return the number of entries (key-value pairs) currently
+	 *          in the dictionary */
+	@Override
+	public int getSize() {
+		return numEntries;
+	}
+
+	/** Task: Sees whether the dictionary is empty.
+	 *  @return true if the dictionary is empty */
+	@Override
+	public boolean isEmpty() {
+		return numEntries == 0;
+	}
+
+	/** Task: Sees whether the dictionary is full.
+	 *  @return true if the dictionary can neither grow nor take another
+	 *          entry */
+	@Override
+	public boolean isFull() {
+		return (keys.length >= MAX_CAPACITY) && (growthLeft == 0) && (numDeleted == 0);
+	}
+
+	/** Task: Removes all entries from the dictionary. */
+	@Override
+	public void clear() {
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = null;
+			values[i] = null;
+		}
+		for (int g = 0; g < control.length; g++) {
+			control[g] = MSBS;      // EMPTY in every byte
+		}
+		numEntries = 0;
+		numDeleted = 0;
+		growthLeft = (int) (keys.length * MAX_LOAD);
+	}
+
+	// Returns the average number of groups examined to find each entry.
+	double getAverageProbeLength() {
+		long totalProbes = 0;
+		for (int i = 0; i < keys.length; i++) {
+			if (getControl(i) >= 0) {
+				int group = (hashStrategy.hash(keys[i]) >>> 7) & groupMask;
+				int probes = 1;
+				for (int step = 1; group != i / GROUP_SIZE; step++) {
+					group = (group + step) & groupMask;
+					probes++;
+				}
+				totalProbes += probes;
+			}
+		}
+		return (numEntries == 0) ? 0 : (double) totalProbes / numEntries;
+	}
+
+	// Returns the index of the entry with the given key, or -1 if none.
+	// Groups are visited in triangular order; within a group only slots
+	// whose control byte matches the key's 7 hash bits are compared, and
+	// a group with an EMPTY slot ends the search.
+	private int locate(K key, int hash) {
+		long pattern = LSBS * (hash & 0x7F);
+		int group = (hash >>> 7) & groupMask;
+		for (int step = 1; step <= control.length; step++) {
+			long word = control[group];
+			for (long matches = matchByte(word, pattern); matches != 0;
+					matches &= matches - 1) {
+				int index = group * GROUP_SIZE + (Long.numberOfTrailingZeros(matches) >>> 3);
+				if (key.equals(keys[index])) {
+					return index;
+				}
+			}
+			if (matchEmpty(word) != 0) {
+				return -1;
+			}
+			group = (group + step) & groupMask;
+		}
+		return -1;
+	}
+
+	// Returns the first EMPTY or DELETED slot on the probe sequence of hash.
+	private int findInsertSlot(int hash) {
+		int group = (hash >>> 7) & groupMask;
+		for (int step = 1; ; step++) {
+			long available = control[group] & MSBS; // EMPTY or DELETED
+			if (available != 0) {
+				return group * GROUP_SIZE + (Long.numberOfTrailingZeros(available) >>> 3);
+			}
+			group = (group + step) & groupMask;
+		}
+	}
+
+	// Returns a mask with the high bit set in each byte of word equal to
+	// the byte repeated in pattern. A byte just above a true match may be
+	// reported too, which is harmless because keys are compared anyway.
+	private static long matchByte(long word, long pattern) {
+		long x = word ^ pattern;
+		return (x - LSBS) & ~x & MSBS;
+	}
+
+	// Returns a mask with the high bit set in each EMPTY byte of word:
+	// EMPTY is the only control byte whose bit 7 is set and bit 1 is clear.
+	private static long matchEmpty(long word) {
+		return word & ~(word << 6) & MSBS;
+	}
+
+	private byte getControl(int index) {
+		return (byte) (control[index / GROUP_SIZE] >>> ((index % GROUP_SIZE) * 8));
+	}
+
+	private void setControl(int index, byte value) {
+		int shift = (index % GROUP_SIZE) * 8;
+		int group = index / GROUP_SIZE;
+		control[group] = (control[group] & ~(0xFFL << shift)) | ((value & 0xFFL) << shift);
+	}
+
+	// Rebuilds the table without DELETED markers: at the same size if they
+	// make up much of the table, otherwise at double the size.
+	private void rehash() {
+		int capacity = keys.length;
+		if (numDeleted < keys.length / 4) {
+			if (keys.length >= MAX_CAPACITY) {
+				throw new IllegalStateException("Attempt to enlarge a " +
+						"dictionary beyond its maximum capacity of " + MAX_CAPACITY);
+			}
+			capacity = keys.length * 2;
+		}
+		K[] oldKeys = keys;
+		V[] oldValues = values;
+		long[] oldControl = control;
+		allocate(capacity);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if ((byte) (oldControl[i / GROUP_SIZE] >>> ((i % GROUP_SIZE) * 8)) >= 0) {
+				int hash = hashStrategy.hash(oldKeys[i]);
+				int index = findInsertSlot(hash);
+				keys[index] = oldKeys[i];
+				values[index] = oldValues[i];
+				setControl(index, (byte) (hash & 0x7F));
+				growthLeft--;
+				numEntries++;
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		// The casts are safe because the new arrays contain null entries
+		@SuppressWarnings("unchecked")
+		K[] tempKeys = (K[]) new Object[capacity];
+		@SuppressWarnings("unchecked")
+		V[] tempValues = (V[]) new Object[capacity];
+		keys = tempKeys;
+		values = tempValues;
+		control = new long[capacity / GROUP_SIZE];
+		groupMask = control.length - 1;
+		clear();
+	}
+
+	public String toString() {
+		String result = "";
+		for (int i = 0; i < keys.length; i++) {
+			result += i + " ";
+			byte state = getControl(i);
+			if (state == EMPTY)
+				result += "null\n";
+			else if (state == DELETED)
+				result += "has been set to \"removed\"\n";
+			else
+				result += keys[i] + " " + values[i] + "\n";
+		}
+		return result;
+	}
+
+	//****************************KeyIterator**************************
+	private class KeyIterator implements Iterator<K> {
+		private int currentIndex; // Current position in hash table
+		private int numberLeft;   // Number of entries left in iteration
+
+		private KeyIterator() {
+			currentIndex = 0;
+			numberLeft = numEntries;
+		}
+
+		public boolean hasNext() {
+			return numberLeft > 0;
+		}
+
+		public K next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			// Skip empty and deleted slots, whose control bytes are negative
+			while (getControl(currentIndex) < 0) {
+				currentIndex++;
+			}
+			numberLeft--;
+			return keys[currentIndex++];
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	//****************************ValueIterator**************************
+	private class ValueIterator implements Iterator<V> {
+		private int currentIndex; // Current position in hash table
+		private int numberLeft;   // Number of entries left in iteration
+
+		private ValueIterator() {
+			currentIndex = 0;
+			numberLeft = numEntries;
+		}
+
+		public boolean hasNext() {
+			return numberLeft > 0;
+		}
+
+		public V next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			// Skip empty and deleted slots, whose control bytes are negative
+			while (getControl(currentIndex) < 0) {
+				currentIndex++;
+			}
+			numberLeft--;
+			return values[currentIndex++];
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}